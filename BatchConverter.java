@@ -0,0 +1,331 @@
+package cs3500.music.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MetaMessage;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.MusicModel;
+import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.ReadOnlyModel;
+import cs3500.music.view.MidiViewer;
+import cs3500.music.view.PrinterForConsole;
+
+/**
+ * Converts many song files at once, without opening any window. Songs are parsed and rendered on
+ * a fixed pool of worker threads, and the rendered files are written to disk by a single writer
+ * thread. Workers hand their output to the writer through a bounded queue, so when the disk falls
+ * behind, the workers wait rather than piling rendered files up in memory.
+ *
+ * <p>The supported output formats are:
+ *   <ul>
+ *     <li>"console": the console view of the song, as text</li>
+ *     <li>"midi": a standard MIDI file</li>
+ *     <li>"binary": the magic number 0x4d555342 ("MUSB" in ASCII), the tempo, the number of notes,
+ *     then the start, end, instrument, pitch and volume of every note, as big-endian ints</li>
+ *   </ul>
+ * </p>
+ */
+public class BatchConverter {
+  // The first int of every binary file, "MUSB" in ASCII.
+  private static final int BINARY_MAGIC = 0x4d555342;
+  private static final int TEMPO_META_TYPE = 0x51;
+
+  private final String format;
+  private final Path outputDirectory;
+  private final int threads;
+  private final AtomicInteger converted = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicLong notes = new AtomicLong();
+
+  /**
+   * Represents a rendered file waiting to be written, or the end of the batch if its path is null.
+   */
+  private static final class Output {
+    private final Path path;
+    private final byte[] bytes;
+
+    private Output(Path path, byte[] bytes) {
+      this.path = path;
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Constructs a new BatchConverter.
+   *
+   * @param format          the output format: "console", "midi" or "binary".
+   * @param outputDirectory the directory to write the converted files to.
+   * @param threads         the number of worker threads to render songs on.
+   * @throws IllegalArgumentException if the format is unknown or there are no threads.
+   */
+  public BatchConverter(String format, Path outputDirectory, int threads) throws
+          IllegalArgumentException {
+    switch (format) {
+      case "console":
+      case "midi":
+      case "binary":
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid output format specified!");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("At least one worker thread is needed.");
+    }
+    this.format = format;
+    this.outputDirectory = outputDirectory;
+    this.threads = threads;
+  }
+
+  /**
+   * Runs a batch conversion from the command line. The arguments are the directory or glob of the
+   * songs to convert, the output format, the output directory, and optionally the number of
+   * worker threads.
+   *
+   * @param args the command line arguments.
+   * @throws IllegalArgumentException if the arguments are invalid.
+   */
+  public static void main(String[] args) throws IllegalArgumentException {
+    if (args.length < 3) {
+      throw new IllegalArgumentException("Usage: batch <directory or glob> <console|midi|binary> "
+              + "<output directory> [threads]");
+    }
+    int threads = args.length > 3 ? Integer.parseInt(args[3])
+            : Runtime.getRuntime().availableProcessors();
+    BatchConverter converter = new BatchConverter(args[1], Paths.get(args[2]), threads);
+    try {
+      long start = System.nanoTime();
+      converter.convert(findSongs(args[0]));
+      System.out.println(converter.summary(System.nanoTime() - start));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not convert [" + args[0] + "]: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Finds the songs named by the given directory or glob. A directory names every .txt file in
+   * it; a glob, such as "songs/*.txt", names the matching files in its directory.
+   *
+   * @param pattern the directory or glob.
+   * @return the song files, in the order the file system lists them.
+   * @throws IOException if the directory cannot be listed.
+   */
+  public static List<Path> findSongs(String pattern) throws IOException {
+    Path path = Paths.get(pattern);
+    Path directory;
+    PathMatcher matcher;
+    if (Files.isDirectory(path)) {
+      directory = path;
+      matcher = FileSystems.getDefault().getPathMatcher("glob:*.txt");
+    } else {
+      directory = path.getParent() == null ? Paths.get(".") : path.getParent();
+      matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+    }
+
+    List<Path> songs = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        if (Files.isRegularFile(file) && matcher.matches(file.getFileName())) {
+          songs.add(file);
+        }
+      }
+    }
+    return songs;
+  }
+
+  /**
+   * Converts the given songs, returning once every converted file has been written. Songs that
+   * cannot be read are reported and skipped.
+   *
+   * @param songs the song files to convert.
+   * @throws IOException if the output directory cannot be created.
+   */
+  public void convert(List<Path> songs) throws IOException {
+    Files.createDirectories(this.outputDirectory);
+    BlockingQueue<Output> written = new ArrayBlockingQueue<>(this.threads * 2);
+    Thread writer = new Thread(() -> writeAll(written), "batch-writer");
+    writer.start();
+
+    // At most two songs per worker are parsed or waiting to be, so the queue of tasks is bounded
+    // too.
+    ExecutorService workers = Executors.newFixedThreadPool(this.threads);
+    Semaphore inFlight = new Semaphore(this.threads * 2);
+    try {
+      for (Path song : songs) {
+        inFlight.acquireUninterruptibly();
+        workers.execute(() -> {
+          try {
+            Output output = render(song);
+            if (output != null) {
+              written.put(output);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            inFlight.release();
+          }
+        });
+      }
+    } finally {
+      workers.shutdown();
+      try {
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        written.put(new Output(null, null));
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Computes the summary of the conversions made so far.
+   *
+   * @param elapsedNanos the time the conversions took.
+   * @return the summary, in files per second and notes per second.
+   */
+  public String summary(long elapsedNanos) {
+    double seconds = Math.max(elapsedNanos, 1) / 1e9;
+    return String.format("Converted %d files (%d failed), %d notes in %.2f s: "
+                    + "%.1f files/s, %.0f notes/s", this.converted.get(), this.failed.get(),
+            this.notes.get(), seconds, this.converted.get() / seconds, this.notes.get() / seconds);
+  }
+
+  /**
+   * Parses and renders one song on a worker thread.
+   *
+   * @param song the song file.
+   * @return the rendered file, or null if the song could not be converted.
+   */
+  private Output render(Path song) {
+    try (Reader reader = Files.newBufferedReader(song, StandardCharsets.UTF_8)) {
+      MusicalOperations<IMusicNote, IMusicPiece> model =
+              MusicReader.parseFile(reader, new MusicModel.ModelBuilder());
+      List<IMusicNote> songNotes = model.getPiece().getNotes();
+
+      byte[] bytes;
+      String extension;
+      switch (this.format) {
+        case "console":
+          bytes = new PrinterForConsole(new ReadOnlyModel(model)).getMusicState()
+                  .getBytes(StandardCharsets.UTF_8);
+          extension = ".txt";
+          break;
+        case "midi":
+          bytes = midiBytes(songNotes, model.getTempo());
+          extension = ".mid";
+          break;
+        default:
+          bytes = binaryBytes(songNotes, model.getTempo());
+          extension = ".bin";
+          break;
+      }
+
+      this.notes.addAndGet(songNotes.size());
+      String name = song.getFileName().toString();
+      int dot = name.lastIndexOf('.');
+      String base = dot > 0 ? name.substring(0, dot) : name;
+      return new Output(this.outputDirectory.resolve(base + extension), bytes);
+    } catch (IOException | InvalidMidiDataException | RuntimeException e) {
+      System.err.println("Could not convert [" + song + "]: " + e.getMessage());
+      this.failed.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * Writes rendered files as they arrive, until the end of the batch.
+   *
+   * @param written the queue of rendered files.
+   */
+  private void writeAll(BlockingQueue<Output> written) {
+    while (true) {
+      Output output;
+      try {
+        output = written.take();
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (output.path == null) {
+        return;
+      }
+      try {
+        Files.write(output.path, output.bytes);
+        this.converted.incrementAndGet();
+      } catch (IOException e) {
+        System.err.println("Could not write [" + output.path + "]: " + e.getMessage());
+        this.failed.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Computes a standard MIDI file playing the given notes at the given tempo.
+   *
+   * @param songNotes the notes of the song.
+   * @param tempo     the tempo, in microseconds per beat.
+   * @return the bytes of the MIDI file.
+   * @throws InvalidMidiDataException if the notes cannot be represented as MIDI.
+   * @throws IOException if the file cannot be written.
+   */
+  private static byte[] midiBytes(List<IMusicNote> songNotes, int tempo)
+          throws InvalidMidiDataException, IOException {
+    Sequence sequence = MidiViewer.buildSequence(songNotes);
+    byte[] mpq = {(byte) (tempo >> 16), (byte) (tempo >> 8), (byte) tempo};
+    sequence.getTracks()[0].add(new MidiEvent(new MetaMessage(TEMPO_META_TYPE, mpq, 3), 0));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    MidiSystem.write(sequence, 0, out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Computes the binary form of the given notes and tempo.
+   *
+   * @param songNotes the notes of the song.
+   * @param tempo     the tempo, in microseconds per beat.
+   * @return the bytes of the binary file.
+   * @throws IOException if the bytes cannot be written.
+   */
+  private static byte[] binaryBytes(List<IMusicNote> songNotes, int tempo) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + songNotes.size() * 20);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(BINARY_MAGIC);
+    out.writeInt(tempo);
+    out.writeInt(songNotes.size());
+    for (IMusicNote note : songNotes) {
+      out.writeInt(note.getStartLocation());
+      out.writeInt(note.getEndLocation() + 1);
+      out.writeInt(note.getInstrument());
+      out.writeInt(note.midiNumber());
+      out.writeInt(note.getVolume());
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+}
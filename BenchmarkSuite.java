@@ -0,0 +1,365 @@
+package cs3500.music.util;
+
+import java.awt.Font;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToIntFunction;
+
+import javax.sound.midi.InvalidMidiDataException;
+
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.MusicModel;
+import cs3500.music.model.MusicNote;
+import cs3500.music.model.Opus;
+import cs3500.music.model.ReadOnlyModel;
+import cs3500.music.view.MidiViewer;
+import cs3500.music.view.PrinterForConsole;
+import cs3500.music.view.ScoreSnapshot;
+import cs3500.music.view.ScoreTileRenderer;
+
+/**
+ * Times the operations that the rest of the MusicEditor is built on, so that every change made for
+ * performance can be held against the same baseline. Each benchmark is run on songs of each of the
+ * given numbers of notes and polyphonies, first for a number of warmup iterations and then for a
+ * number of measured ones, and reports the time and the bytes allocated per iteration.
+ *
+ * <p>The songs are generated from a fixed seed, so runs can be compared with each other. Anything
+ * an iteration needs, such as a fresh copy of a piece to edit, is prepared before it is timed.</p>
+ */
+public class BenchmarkSuite {
+  private static final long SEED = 3500;
+  // The number of notes looked up, deleted or replaced by one iteration of those benchmarks.
+  private static final int EDITS_PER_ITERATION = 1000;
+  // The layout of the score, as the editor draws it at its closest zoom, and the width of the
+  // part of it painted by one iteration.
+  private static final int SCORE_TOP = 20;
+  private static final int BEAT_HEIGHT = 12;
+  private static final int BEAT_WIDTH = 16;
+  private static final int VIEWPORT_WIDTH = 1600;
+  // What the timed work computes is stored here, so that it cannot be eliminated as dead code.
+  private static volatile Object sink;
+
+  /**
+   * Represents one benchmark, which prepares an iteration for a song without timing it.
+   */
+  private interface Benchmark {
+
+    /**
+     * Prepares one iteration of this benchmark for the given song.
+     *
+     * @param song the song to run on.
+     * @return the work to time.
+     * @throws Exception if the iteration cannot be prepared.
+     */
+    Runnable prepare(Song song) throws Exception;
+  }
+
+  /**
+   * Represents the song a benchmark is run on, made up by the SongGenerator: its notes, in order
+   * of starting beat, and the same notes in the file format read by the MusicReader.
+   */
+  private static final class Song {
+    private final int polyphony;
+    private final List<IMusicNote> notes;
+    private final String text;
+
+    /**
+     * Makes up a song of the given number of notes, played by the given number of voices.
+     *
+     * @param count     the number of notes.
+     * @param polyphony the number of voices.
+     * @throws IOException if the song cannot be written out.
+     */
+    private Song(int count, int polyphony) throws IOException {
+      SongGenerator generator = new SongGenerator.Builder().seed(SEED).polyphony(polyphony)
+              .beats(Integer.MAX_VALUE).maxNotes(count).build();
+      this.polyphony = polyphony;
+      this.notes = new ArrayList<>(generator.generateInto(new MusicModel.ModelBuilder())
+              .getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+      StringWriter file = new StringWriter();
+      generator.writeTo(file);
+      this.text = file.toString();
+    }
+
+    /**
+     * Creates a new Opus holding the notes of this song.
+     *
+     * @return the Opus.
+     */
+    private Opus opus() {
+      return new Opus(4, this.notes, 200000);
+    }
+
+    /**
+     * Creates a new read only model of this song.
+     *
+     * @return the model.
+     */
+    private IReadOnlyModel<IMusicNote, IMusicPiece> model() {
+      return new ReadOnlyModel(new MusicModel(opus(), 4, 200000));
+    }
+  }
+
+  /**
+   * Provides every benchmark, by name, in the order they are run.
+   *
+   * @return the benchmarks.
+   */
+  private static Map<String, Benchmark> benchmarks() {
+    Map<String, Benchmark> all = new LinkedHashMap<>();
+    all.put("opus.addNote", song -> {
+      Opus opus = new Opus(4, 200000);
+      return () -> song.notes.forEach(opus::addNote);
+    });
+    all.put("opus.delete", song -> {
+      Opus opus = song.opus();
+      List<IMusicNote> doomed = sample(song.notes);
+      return () -> doomed.forEach(opus::delete);
+    });
+    all.put("opus.replace", song -> {
+      Opus opus = song.opus();
+      List<IMusicNote> old = sample(song.notes);
+      return () -> {
+        for (IMusicNote note : old) {
+          opus.replace(note, new MusicNote(note.getStartLocation(), note.getEndLocation() + 2,
+                  note.getInstrument(), note.midiNumber(), note.getVolume()));
+        }
+      };
+    });
+    all.put("opus.getNoteAt", song -> {
+      Opus opus = song.opus();
+      List<IMusicNote> wanted = sample(song.notes);
+      return () -> {
+        int found = 0;
+        for (IMusicNote note : wanted) {
+          found ^= System.identityHashCode(opus.getNoteAt(note.getSoundPair(),
+                  note.getStartLocation()));
+        }
+        sink = found;
+      };
+    });
+    all.put("opus.computeMap", song -> {
+      Opus opus = song.opus();
+      return () -> sink = opus.computeMap();
+    });
+    all.put("reader.parseFile", song ->
+        () -> sink = MusicReader.parseFile(new StringReader(song.text),
+                new MusicModel.ModelBuilder()));
+    all.put("console.render", song -> {
+      PrinterForConsole printer = new PrinterForConsole(song.model());
+      return () -> {
+        try {
+          printer.render(Writer.nullWriter());
+        } catch (IOException e) {
+          throw new IllegalStateException(e.getMessage());
+        }
+      };
+    });
+    all.put("midi.buildSequence", song -> {
+      List<IMusicNote> notes = new ArrayList<>(song.notes);
+      return () -> {
+        try {
+          sink = MidiViewer.buildSequence(notes);
+        } catch (InvalidMidiDataException e) {
+          throw new IllegalStateException(e.getMessage());
+        }
+      };
+    });
+    // The editor paints tiles on worker threads and only copies them to the screen, so the tiles
+    // are painted here directly, on the timed thread, rather than through the editor.
+    all.put("editor.paintTiles", song -> {
+      ScoreSnapshot snapshot = new ScoreSnapshot(song.notes, 4);
+      ScoreTileRenderer renderer = new ScoreTileRenderer(SCORE_TOP, BEAT_HEIGHT,
+              new Font(Font.DIALOG, Font.PLAIN, 12), () -> { });
+      return () -> {
+        for (int i = 0; i < paintedTiles(); i += 1) {
+          sink = renderer.paintTile(snapshot, BEAT_WIDTH, i);
+        }
+      };
+    });
+    return all;
+  }
+
+  /**
+   * Computes the number of tiles that cover the part of the score painted by one iteration.
+   *
+   * @return the number of tiles.
+   */
+  private static int paintedTiles() {
+    int tileWidth = ScoreTileRenderer.tileBeats(BEAT_WIDTH) * BEAT_WIDTH;
+    return (VIEWPORT_WIDTH + tileWidth - 1) / tileWidth;
+  }
+
+  /**
+   * Provides the largest number of notes each benchmark is run with, for the benchmarks whose
+   * cost grows faster than the number of notes.
+   *
+   * @return the limits, by benchmark name.
+   */
+  private static Map<String, Integer> limits() {
+    Map<String, Integer> limits = new LinkedHashMap<>();
+    // Looks up every sound on every beat, by scanning every note.
+    limits.put("opus.computeMap", 10000);
+    return limits;
+  }
+
+  /**
+   * Provides the number of notes one iteration works on, for the benchmarks that work on only part
+   * of the song, so that their time per note is not divided among notes they never touch.
+   *
+   * @return the number of notes worked on for a song, by benchmark name.
+   */
+  private static Map<String, ToIntFunction<Song>> notesTouched() {
+    Map<String, ToIntFunction<Song>> touched = new LinkedHashMap<>();
+    ToIntFunction<Song> sampled = song -> Math.min(EDITS_PER_ITERATION, song.notes.size());
+    touched.put("opus.delete", sampled);
+    touched.put("opus.replace", sampled);
+    touched.put("opus.getNoteAt", sampled);
+    touched.put("editor.paintTiles", song -> {
+      int lastBeat = paintedTiles() * ScoreTileRenderer.tileBeats(BEAT_WIDTH) - 1;
+      int painted = 0;
+      for (IMusicNote note : song.notes) {
+        if (note.getStartLocation() <= lastBeat) {
+          painted += 1;
+        }
+      }
+      return painted;
+    });
+    return touched;
+  }
+
+  /**
+   * Picks a fixed sample of the given notes for the editing and lookup benchmarks.
+   *
+   * @param notes the notes to pick from.
+   * @return the sample, without repeats.
+   */
+  private static List<IMusicNote> sample(List<IMusicNote> notes) {
+    List<IMusicNote> shuffled = new ArrayList<>(notes);
+    Collections.shuffle(shuffled, new Random(SEED));
+    return new ArrayList<>(shuffled.subList(0, Math.min(EDITS_PER_ITERATION, notes.size())));
+  }
+
+  /**
+   * Runs the benchmarks from the command line. The options are:
+   *   <ul>
+   *     <li>--notes: the numbers of notes to run with, such as 1000,10000,100000,1000000</li>
+   *     <li>--polyphony: the numbers of voices playing at once, such as 1,4,16</li>
+   *     <li>--only: the names of the benchmarks to run, if not all of them</li>
+   *     <li>--warmup and --iterations: the numbers of untimed and timed iterations</li>
+   *   </ul>
+   *
+   * @param args the command line arguments.
+   * @throws Exception if a benchmark fails.
+   */
+  public static void main(String[] args) throws Exception {
+    int[] counts = {1000, 10000, 100000};
+    int[] polyphonies = {1, 4};
+    List<String> only = null;
+    int warmup = 3;
+    int iterations = 5;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--notes":
+          counts = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+          break;
+        case "--polyphony":
+          polyphonies = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt)
+                  .toArray();
+          break;
+        case "--only":
+          only = Arrays.asList(args[i + 1].split(","));
+          break;
+        case "--warmup":
+          warmup = Integer.parseInt(args[i + 1]);
+          break;
+        case "--iterations":
+          iterations = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    System.out.println(String.format("%-20s %9s %5s %12s %10s %14s", "benchmark", "notes", "poly",
+            "ms/op", "ns/note", "bytes/op"));
+    Map<String, Integer> limits = limits();
+    Map<String, ToIntFunction<Song>> touched = notesTouched();
+    for (int count : counts) {
+      for (int polyphony : polyphonies) {
+        Song song = new Song(count, polyphony);
+        for (Map.Entry<String, Benchmark> entry : benchmarks().entrySet()) {
+          String name = entry.getKey();
+          if ((only != null && !only.contains(name)) || count > limits.getOrDefault(name,
+                  Integer.MAX_VALUE)) {
+            continue;
+          }
+          int notes = touched.getOrDefault(name, s -> s.notes.size()).applyAsInt(song);
+          System.out.println(measure(name, entry.getValue(), song, notes, warmup, iterations));
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs one benchmark on one song.
+   *
+   * @param name       the name of the benchmark.
+   * @param benchmark  the benchmark.
+   * @param song       the song to run on.
+   * @param notes      the number of notes one iteration works on.
+   * @param warmup     the number of untimed iterations to run first.
+   * @param iterations the number of timed iterations.
+   * @return the line of results.
+   * @throws Exception if the benchmark fails.
+   */
+  private static String measure(String name, Benchmark benchmark, Song song, int notes,
+                                int warmup, int iterations) throws Exception {
+    for (int i = 0; i < warmup; i += 1) {
+      benchmark.prepare(song).run();
+    }
+
+    long nanos = 0;
+    long bytes = 0;
+    for (int i = 0; i < iterations; i += 1) {
+      Runnable work = benchmark.prepare(song);
+      long allocatedBefore = allocatedBytes();
+      long start = System.nanoTime();
+      work.run();
+      nanos += System.nanoTime() - start;
+      bytes += allocatedBytes() - allocatedBefore;
+    }
+
+    double nanosPerOp = (double) nanos / iterations;
+    return String.format("%-20s %9d %5d %12.3f %10.1f %14d", name, song.notes.size(),
+            song.polyphony, nanosPerOp / 1e6, nanosPerOp / Math.max(1, notes),
+            bytes / iterations);
+  }
+
+  /**
+   * Provides the number of bytes allocated by this thread so far, or 0 if the JVM cannot tell.
+   *
+   * @return the bytes allocated by this thread.
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+              .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+}
@@ -1,8 +1,11 @@
 package cs3500.music.controller;
 
 
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -14,6 +17,7 @@ import java.util.Map;
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
 import javax.swing.JButton;
+import javax.swing.Timer;
 
 
 import cs3500.music.model.IMusicNote;
@@ -22,9 +26,12 @@ import cs3500.music.model.IReadOnlyModel;
 import cs3500.music.model.MusicModel;
 import cs3500.music.model.MusicNote;
 import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.NoteEdit;
 import cs3500.music.model.PitchType;
-import cs3500.music.model.ReadOnlyModel;
 import cs3500.music.model.Repeat;
+import cs3500.music.model.UndoableModel;
+import cs3500.music.util.EditJournal;
+import cs3500.music.util.EditorMetrics;
 import cs3500.music.util.MusicReader;
 import cs3500.music.view.BlackKey;
 import cs3500.music.view.CompositeView;
@@ -38,28 +45,103 @@ import cs3500.music.view.WhiteKey;
  */
 public class CompositeControllerImp implements
         IController<IMusicNote, MusicalOperations<IMusicNote, IMusicPiece>> {
+  private static final int FRAME_MILLIS = 16;
   private ICompositeView<IReadOnlyModel<IMusicNote, IMusicPiece>> view;
   private MusicalOperations<IMusicNote, IMusicPiece> model;
+  private EditQueue edits;
+  private UndoableModel history;
   private boolean currentlyPlaying;
   private PitchType prevPitch = PitchType.C;
   private int prevOctave = 0;
   private int noteStartBeat = 0;
+  // The note written by the key being held down, which each further click makes longer, and the
+  // number of the edit that wrote it.
+  private IMusicNote heldNote;
+  private long heldEdit;
   private boolean constructingRepeat = false;
   private int beginningRepeat = 0;
   private List<Integer> endings = new ArrayList<>();
 
+  /**
+   * Makes the view that a CompositeControllerImp drives, once the model it shows is ready.
+   */
+  public interface ViewMaker {
+
+    /**
+     * Makes the view of the given model.
+     * @param model the read-only model the view shows.
+     * @return the view.
+     * @throws MidiUnavailableException if the view cannot get the MidiDevices it needs.
+     */
+    ICompositeView<IReadOnlyModel<IMusicNote, IMusicPiece>> make(
+            IReadOnlyModel<IMusicNote, IMusicPiece> model) throws MidiUnavailableException;
+  }
+
   /**
    * Constructs a new CompositeControllerImp object from the data in the given music file.
    * @param file contains data on the song to play.
    * @throws MidiUnavailableException if the system cannot access the MidiDevice requested.
    */
   public CompositeControllerImp(Readable file) throws MidiUnavailableException {
-    model = MusicReader.parseFile(file, new MusicModel.ModelBuilder());
+    this(file, null);
+  }
+
+  /**
+   * Constructs a new CompositeControllerImp object that autosaves its editing session to the given
+   * directory. If the directory already holds a session, it is recovered instead of the song in
+   * the given file being read from scratch.
+   * @param file contains data on the song to play.
+   * @param session the session directory, or null to not autosave.
+   * @throws MidiUnavailableException if the system cannot access the MidiDevice requested.
+   */
+  public CompositeControllerImp(Readable file, Path session) throws MidiUnavailableException {
+    this(file, session, model -> new CompositeView(model, MidiSystem.getSequencer()));
+  }
+
+  /**
+   * Constructs a new CompositeControllerImp object, as above, that drives the view made by the
+   * given ViewMaker rather than the usual windows and MIDI synthesizer.
+   * @param file contains data on the song to play.
+   * @param session the session directory, or null to not autosave.
+   * @param views makes the view to drive.
+   * @throws MidiUnavailableException if the view cannot get the MidiDevices it needs.
+   */
+  public CompositeControllerImp(Readable file, Path session, ViewMaker views)
+          throws MidiUnavailableException {
+    if (session == null) {
+      model = MusicReader.parseFile(file, new MusicModel.ModelBuilder());
+    } else {
+      model = EditJournal.recover(session, file);
+      EditJournal journal = new EditJournal(session, model);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          journal.close();
+        } catch (IllegalArgumentException e) {
+          System.err.println(e.getMessage());
+        }
+      }));
+    }
     //model.addRepeat(new Repeat(0, new ArrayList<>(Arrays.asList(5))));
     //model.addRepeat(new Repeat(6, new ArrayList<>(Arrays.asList(18, 30, 40, 48))));
-    view = new CompositeView(new ReadOnlyModel(model), MidiSystem.getSequencer());
+    history = new UndoableModel(model);
+    edits = new EditQueue(history);
+    edits.setRejectionHandler(this::reportRejected);
+    EditorMetrics.getInstance().watchModel(edits.getLatest(), edits::getVersion);
+    EditorMetrics.register();
+    view = views.make(edits.getLatest());
     currentlyPlaying = false;
     setKeyListenersForView();
+    startFrameClock();
+  }
+
+  /**
+   * Starts the frame clock, which once per frame publishes the latest version of the model
+   * prepared by the edit queue. The views listen to the published model, and patch only what the
+   * new version changed.
+   */
+  private void startFrameClock() {
+    Timer frameTimer = new Timer(FRAME_MILLIS, e -> edits.publish());
+    frameTimer.start();
   }
 
   /**
@@ -93,8 +175,8 @@ public class CompositeControllerImp implements
       public void run() {
        if (constructingRepeat) {
          constructingRepeat = false;
-         model.addRepeat(new Repeat(beginningRepeat, endings));
-         view.refresh(new ReadOnlyModel(model));
+         Repeat repeat = new Repeat(beginningRepeat, endings);
+         edits.submit(m -> m.addRepeat(repeat));
 
        } else {
          constructingRepeat = true;
@@ -122,6 +204,20 @@ public class CompositeControllerImp implements
       }
     });
 
+    kp.put(KeyEvent.VK_Z, () -> {
+      heldNote = null;
+      edits.submit(m -> history.undo());
+    });
+
+    kp.put(KeyEvent.VK_Y, () -> {
+      heldNote = null;
+      edits.submit(m -> history.redo());
+    });
+
+    kp.put(KeyEvent.VK_EQUALS, () -> view.getEditorPanel().zoomIn());
+
+    kp.put(KeyEvent.VK_MINUS, () -> view.getEditorPanel().zoomOut());
+
     kr.put(KeyEvent.VK_HOME, () -> view.goToStart());
 
     kr.put(KeyEvent.VK_END, () -> {
@@ -156,8 +252,60 @@ public class CompositeControllerImp implements
   @Override
   public void addNote(IMusicNote note) {
     if (!currentlyPlaying) {
-      model.writeNote(note);
-      view.refresh(new ReadOnlyModel(model));
+      edits.submit(m -> m.writeNote(note));
+    }
+  }
+
+  /**
+   * Queues the given note to be written into the model, unless the music is playing. If the key
+   * for the note is being held down, the note it wrote so far is swapped for the given one, or
+   * the given note is written afresh if that note is no longer in the model.
+   *
+   * @param note       the note made by the key.
+   * @param continuing whether the key was already held down.
+   */
+  private void holdNote(IMusicNote note, boolean continuing) {
+    if (!currentlyPlaying) {
+      heldEdit = edits.submit(note.getSoundPair(), continuing && isHeldNoteWritten()
+              ? NoteEdit.replace(heldNote, note) : NoteEdit.write(note));
+      heldNote = note;
+    }
+  }
+
+  /**
+   * Tells whether the note written by the key being held down is still in the model, or is yet
+   * to be written.
+   *
+   * @return true if the held note can be swapped for a longer one.
+   */
+  private boolean isHeldNoteWritten() {
+    if (heldNote == null) {
+      return false;
+    }
+    if (!edits.isPublished(heldEdit)) {
+      return true;
+    }
+    int start = heldNote.getStartLocation();
+    for (IMusicNote written : edits.getLatest().getNotesBetween(start, start)) {
+      if (written.getId() == heldNote.getId()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reports an edit that the model rejected.
+   *
+   * @param e the reason the edit was rejected.
+   */
+  private void reportRejected(IllegalArgumentException e) {
+    // The rejected edit may have been the one writing the held note, so the next click starts
+    // a new note.
+    heldNote = null;
+    System.err.println("Could not apply an edit: " + e.getMessage());
+    if (!GraphicsEnvironment.isHeadless()) {
+      Toolkit.getDefaultToolkit().beep();
     }
   }
 
@@ -180,9 +328,10 @@ public class CompositeControllerImp implements
 
   @Override
   public MusicalOperations<IMusicNote, IMusicPiece> getModel() {
-    IMusicPiece opus = this.model.getPiece();
+    IReadOnlyModel<IMusicNote, IMusicPiece> latest = this.edits.getLatest();
+    IMusicPiece opus = latest.getPiece();
     int measureDuration = (int) Math.ceil(opus.getMeasureDuration());
-    int tempo = this.model.getTempo();
+    int tempo = latest.getTempo();
 
     return new MusicModel(opus, measureDuration, tempo);
   }
@@ -201,7 +350,8 @@ public class CompositeControllerImp implements
     }
     int duration = 1;
     int startBeat = view.getTick();
-    if (prevOctave == octave && prevPitch == pitch) {
+    boolean continuing = heldNote != null && prevOctave == octave && prevPitch == pitch;
+    if (continuing) {
       noteStartBeat += 1;
       duration += noteStartBeat;
       startBeat = view.getTick() - noteStartBeat;
@@ -211,7 +361,9 @@ public class CompositeControllerImp implements
     prevPitch = pitch;
     prevOctave = octave;
     IMusicNote note = new MusicNote(pitch, duration, octave, startBeat);
-    this.addNote(note);
+    // Holding down a key re-sends a longer version of the same note, which replaces the shorter
+    // one rather than being written as well.
+    holdNote(note, continuing);
   }
 
   @Override
@@ -15,6 +15,7 @@ import cs3500.music.model.MusicModel;
 import cs3500.music.model.MusicalOperations;
 import cs3500.music.model.ReadOnlyModel;
 import cs3500.music.model.Repeat;
+import cs3500.music.util.EditorMetrics;
 
 /**
  * Represents a composite view that combines the Visual and Audio elements of the View in this
@@ -32,9 +33,24 @@ public class CompositeView implements ICompositeView<IReadOnlyModel<IMusicNote,
    */
   public CompositeView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel, Sequencer seq) throws
           MidiUnavailableException {
+    this(inputModel, new MidiViewer(inputModel, seq), new GUIView(inputModel));
+  }
+
+  /**
+   * Constructs a new CompositeView object that plays and shows the song through the given views,
+   * such as views that need no display.
+   * @param inputModel the mutable model from which to compute a read only model
+   * @param midi the view that plays the song.
+   * @param gui the view that shows the song.
+   */
+  public CompositeView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel,
+                       IAudioView<IReadOnlyModel<IMusicNote, IMusicPiece>> midi,
+                       IVisualView<IReadOnlyModel<IMusicNote, IMusicPiece>> gui) {
     this.model = inputModel;
-    this.midi = new MidiViewer(inputModel, seq);
-    this.gui = new GUIView(inputModel);
+    this.midi = midi;
+    this.gui = gui;
+    EditorMetrics.getInstance().watchClocks(this.midi::getTick, this.gui::getTick,
+        () -> this.model.getTempo());
   }
 
   @Override
@@ -0,0 +1,255 @@
+package cs3500.music.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Represents a musical composition that can be safely shared between threads. Edits are applied
+ * one at a time to an underlying model while holding a lock, and after each edit an immutable
+ * version of the composition is published behind an AtomicReference. Every read is answered from
+ * the latest published version, so readers never block, are never blocked by writers, and a
+ * reader holding on to a version sees a consistent composition for as long as it likes.
+ *
+ * <p>A version shares its notes, sorted by starting beat, with the model, so publishing one costs
+ * no more than merging the notes an update changed into the sorted notes. Several edits that
+ * belong together should still be made through a single call to update, which publishes one
+ * version for all of them. Listeners are told of the changes an update made only once the
+ * version reflecting them has been published.</p>
+ */
+public class ConcurrentMusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
+  private final MusicalOperations<IMusicNote, IMusicPiece> model;
+  private final ReentrantLock writeLock = new ReentrantLock();
+  private final AtomicReference<Version> published = new AtomicReference<>();
+  private final List<IModelListener> listeners = new CopyOnWriteArrayList<>();
+  // The changes made by the update in progress, which are held back until it is published.
+  private final List<ModelChange> unpublished = new ArrayList<>();
+
+  /**
+   * Represents one immutable version of the composition.
+   */
+  private static final class Version {
+    private final long number;
+    private final MusicalOperations<IMusicNote, IMusicPiece> copy;
+    private final IReadOnlyModel<IMusicNote, IMusicPiece> view;
+    private final List<Repeat> repeats;
+
+    private Version(long number, MusicalOperations<IMusicNote, IMusicPiece> copy) {
+      this.number = number;
+      this.copy = copy;
+      this.view = new ReadOnlyModel(copy);
+      this.repeats = Collections.unmodifiableList(new ArrayList<>(copy.getRepeats()));
+    }
+  }
+
+  /**
+   * Constructs a new ConcurrentMusicModel over the given model. From this point on, the given
+   * model should only be edited through this one.
+   *
+   * @param model the model to edit.
+   */
+  public ConcurrentMusicModel(MusicalOperations<IMusicNote, IMusicPiece> model) {
+    this.model = model;
+    this.published.set(new Version(0, copyOf(model)));
+    this.model.addListener(this.unpublished::addAll);
+  }
+
+  /**
+   * Applies the given edits to the composition while holding the write lock, then publishes a
+   * single new version, then tells the listeners what changed. If the edits throw, the version
+   * that is published still reflects whatever they changed before throwing.
+   *
+   * @param edits the edits to apply.
+   */
+  public void update(Consumer<MusicalOperations<IMusicNote, IMusicPiece>> edits) {
+    this.writeLock.lock();
+    try {
+      edits.accept(this.model);
+    } finally {
+      try {
+        Version last = this.published.get();
+        this.published.set(new Version(last.number + 1, copyOf(this.model)));
+        if (!this.unpublished.isEmpty()) {
+          List<ModelChange> changes = new ArrayList<>(this.unpublished);
+          this.unpublished.clear();
+          for (IModelListener listener : this.listeners) {
+            listener.modelChanged(changes);
+          }
+        }
+      } finally {
+        this.writeLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Provides the latest published version of the composition. The returned model never changes,
+   * so a view can read from it for a whole frame and see consistent data.
+   *
+   * @return the latest version, as a read-only model.
+   */
+  public IReadOnlyModel<IMusicNote, IMusicPiece> snapshot() {
+    return this.published.get().view;
+  }
+
+  /**
+   * Provides the number of the latest published version, which increases by one for every call
+   * to update, or to one of the editing operations.
+   *
+   * @return the latest version number.
+   */
+  public long getVersion() {
+    return this.published.get().number;
+  }
+
+  /**
+   * Computes an immutable copy of the given model. The copy shares the list of notes sorted by
+   * starting beat with the model, which is safe because neither notes nor a sorted list of them
+   * ever change; the model builds a new list after it is edited.
+   *
+   * @param source the model to copy.
+   * @return a copy of the model, which nothing else refers to.
+   */
+  private static MusicalOperations<IMusicNote, IMusicPiece> copyOf(
+          MusicalOperations<IMusicNote, IMusicPiece> source) {
+    IMusicPiece opus = Opus.sharing(source.getMeasureLength(),
+            source.getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE), source.getTempo());
+    MusicalOperations<IMusicNote, IMusicPiece> copy = new MusicModel(opus,
+            source.getMeasureLength(), source.getTempo());
+    for (Repeat repeat : new ArrayList<>(source.getRepeats())) {
+      copy.addRepeat(repeat);
+    }
+    return copy;
+  }
+
+  @Override
+  public IMusicPiece getPiece() {
+    return current().getPiece();
+  }
+
+  @Override
+  public IMusicPiece getPieceAfter(int start) {
+    return current().getPieceAfter(start);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesBetween(int fromBeat, int toBeat) {
+    return current().getNotesBetween(fromBeat, toBeat);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesPlaying(int fromBeat, int toBeat) {
+    return current().getNotesPlaying(fromBeat, toBeat);
+  }
+
+  @Override
+  public Map<Integer, List<IMusicNote>> getPieceByTime() {
+    return current().getPieceByTime();
+  }
+
+  @Override
+  public void writeNote(IMusicNote addedNote) {
+    update(m -> m.writeNote(addedNote));
+  }
+
+  @Override
+  public void removeNote(IMusicNote note) throws IllegalArgumentException {
+    update(m -> m.removeNote(note));
+  }
+
+  @Override
+  public void replaceNote(IMusicNote currentNote, IMusicNote newNote) throws
+          IllegalArgumentException {
+    update(m -> m.replaceNote(currentNote, newNote));
+  }
+
+  @Override
+  public void applyEdits(List<NoteEdit<IMusicNote>> edits) throws IllegalArgumentException {
+    update(m -> m.applyEdits(edits));
+  }
+
+  @Override
+  public void combinePieces(IMusicPiece toJoin, boolean simultaneous) throws
+          IllegalArgumentException {
+    update(m -> m.combinePieces(toJoin, simultaneous));
+  }
+
+  @Override
+  public IMusicNote getLowestNote(IMusicPiece opus) {
+    return current().getLowestNote(opus);
+  }
+
+  @Override
+  public IMusicNote getHighestNote(IMusicPiece opus) {
+    return current().getHighestNote(opus);
+  }
+
+  @Override
+  public String getMusicState() {
+    return current().getMusicState();
+  }
+
+  @Override
+  public void setTempo(int newTempo) {
+    update(m -> m.setTempo(newTempo));
+  }
+
+  @Override
+  public int getTempo() {
+    return current().getTempo();
+  }
+
+  @Override
+  public int getMeasureLength() {
+    return current().getMeasureLength();
+  }
+
+  @Override
+  public int getTotalDuration() {
+    return current().getTotalDuration();
+  }
+
+  @Override
+  public int totalRange() {
+    return current().totalRange();
+  }
+
+  @Override
+  public List<Repeat> getRepeats() {
+    return this.published.get().repeats;
+  }
+
+  @Override
+  public void addRepeat(Repeat repeat) {
+    update(m -> m.addRepeat(repeat));
+  }
+
+  @Override
+  public void removeRepeat(Repeat repeat) throws IllegalArgumentException {
+    update(m -> m.removeRepeat(repeat));
+  }
+
+  @Override
+  public void addListener(IModelListener listener) {
+    this.listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(IModelListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Provides the copy of the composition in the latest published version.
+   *
+   * @return the latest copy.
+   */
+  private MusicalOperations<IMusicNote, IMusicPiece> current() {
+    return this.published.get().copy;
+  }
+}
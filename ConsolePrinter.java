@@ -1,21 +1,50 @@
 package cs3500.music.model;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * A helper class to IMusicPiece, provides functionality for printing the notes in the musical piece
  * to the console.
+ *
+ * <p>The console visualization is rendered one beat at a time into a single row buffer that is
+ * reused for every beat, so rendering needs the same amount of memory however long the piece is,
+ * and can be streamed straight to a Writer or any other Appendable.</p>
+ *
+ * <p>Every line depends only on its beat and the notes of each sound, so the lines can also be
+ * rendered in parallel: the beats are split into blocks that are rendered on a ForkJoinPool and
+ * written out in order.</p>
+ *
+ * <p>For output that is stored rather than read on a terminal, the compact form leaves out the
+ * sounds no note in the window plays, drops trailing spaces, and prints a run of identical lines
+ * once, followed by "\u00d7N" for the N beats it lasts.</p>
  */
 public class ConsolePrinter {
-  private final IMusicNote lowestSound;
-  private final IMusicNote highestSound;
+  private static final int CELL_WIDTH = 5;
+  private static final char[] NOTE_START = "  X  ".toCharArray();
+  private static final char[] NOTE_HELD = "  |  ".toCharArray();
+  private static final char[] NO_NOTE = "     ".toCharArray();
+  private static final char RUN_MARK = '\u00d7';
+  private static final PitchType[] PITCHES = PitchType.values();
+  // The number of characters rendered by each parallel task, about 2MB of text.
+  private static final int BLOCK_CHARS = 1 << 20;
+
   private final List<IMusicNote> notes;
-  private final int totalDuration;
+  private final int fromBeat;
+  private final int toBeat;
+  private final int lowMidi;
+  private final int highMidi;
+  private final boolean beatsAlignedRight;
 
   /**
    * Constructs a new ConsolePrinter object with a lowest note and highest note, a list of all
@@ -30,110 +59,423 @@ public class ConsolePrinter {
    */
   public ConsolePrinter(IMusicNote lowestSound, IMusicNote highestSound, List<IMusicNote> notes, int
           totalDuration) {
-    this.lowestSound = lowestSound;
-    this.highestSound = highestSound;
+    this(lowestSound, highestSound, notes, totalDuration, false);
+  }
+
+  /**
+   * Constructs a new ConsolePrinter object, as above, that prints the beat numbers either
+   * left-aligned or right-aligned in the time column.
+   *
+   * @param lowestSound       the note with the lowest sound.
+   * @param highestSound      the note with the highest sound.
+   * @param notes             the list of notes to print to the console.
+   * @param totalDuration     the length of time (in beats) for which the music piece should be
+   *                          visualized.
+   * @param beatsAlignedRight whether the beat numbers are right-aligned.
+   */
+  public ConsolePrinter(IMusicNote lowestSound, IMusicNote highestSound, List<IMusicNote> notes, int
+          totalDuration, boolean beatsAlignedRight) {
+    this(notes, 0, totalDuration, lowestSound.midiNumber(), highestSound.midiNumber(),
+            beatsAlignedRight);
+  }
+
+  /**
+   * Constructs a new ConsolePrinter object that prints only the given window of the musical
+   * piece: the beats from fromBeat to toBeat, and the sounds from lowMidi to highMidi. Notes
+   * outside the window are left out, so only the notes playing within it need to be given.
+   *
+   * @param notes             the notes to print to the console.
+   * @param fromBeat          the first beat to print, which is not negative.
+   * @param toBeat            the last beat to print.
+   * @param lowMidi           the Midi Number of the lowest sound to print.
+   * @param highMidi          the Midi Number of the highest sound to print, or one less than
+   *                          lowMidi to print no sounds.
+   * @param beatsAlignedRight whether the beat numbers are right-aligned.
+   */
+  public ConsolePrinter(List<IMusicNote> notes, int fromBeat, int toBeat, int lowMidi,
+                        int highMidi, boolean beatsAlignedRight) {
     this.notes = notes;
-    this.totalDuration = totalDuration;
+    this.fromBeat = fromBeat;
+    this.toBeat = toBeat;
+    this.lowMidi = lowMidi;
+    this.highMidi = highMidi;
+    this.beatsAlignedRight = beatsAlignedRight;
   }
 
   /**
-   * Computes the lines of output for the console visualization for this song, not including the
-   * pitch-octave headers line.
+   * Writes the whole console visualization, the header line followed by one line per beat, to the
+   * given output as it is rendered.
    *
-   * @return the lines of console output for the notes in this song.
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
    */
-  public String subsequentLines() {
-    SortedMap<SoundPair, List<IMusicNote>> notesMap = mapNotes(this.notes);
-    int totalTime = this.totalDuration;
-    StringBuilder lines = new StringBuilder("");
-
-    //Computes the line to be printed at each beat in the piece
-    for (int t = 0; t <= totalTime; t += 1) {
-      StringBuilder thisLine = new StringBuilder(timeColumn(t, totalTime));
-      for (Map.Entry<SoundPair, List<IMusicNote>> item : notesMap.entrySet()) {
-        if (item.getValue().size() == 0) {
-          thisLine.append( "     "); // If there are no notes playing this sound
-        } else if (item.getValue().size() == 1) {
-          thisLine.append(item.getValue().get(0).consoleString(t)); //If 1 note plays this sound
-        } else {
-          thisLine.append(outputAtTimeAndSound(t, item.getValue())); //If > 1 notes play this sound
-        }
+  public void render(Appendable out) throws IOException {
+    out.append(headerLine()).append('\n');
+    renderLines(out, null);
+  }
+
+  /**
+   * Writes the compact console visualization to the given output. Only the sounds played within
+   * the window get a column, and each run of identical lines, such as a long held chord or a
+   * silence, is written as its first line followed by "\u00d7N", where N is the number of beats
+   * in the run.
+   *
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
+   */
+  public void renderCompact(Appendable out) throws IOException {
+    BitSet played = new BitSet(Math.max(0, this.highMidi - this.lowMidi + 1));
+    for (IMusicNote note : this.notes) {
+      int lane = note.midiNumber() - this.lowMidi;
+      if (!(note instanceof RestNote) && lane >= 0 && lane <= this.highMidi - this.lowMidi
+              && note.getStartLocation() <= this.toBeat && note.getEndLocation() >= this.fromBeat) {
+        played.set(lane);
       }
-      lines.append(thisLine + "\n");
     }
-    return lines.toString();
+
+    StringBuilder headings = new StringBuilder();
+    for (int i = 0; i < String.valueOf(this.toBeat).length(); i += 1) {
+      headings.append(' ');
+    }
+    for (int lane = played.nextSetBit(0); lane >= 0; lane = played.nextSetBit(lane + 1)) {
+      headings.append(heading(this.lowMidi + lane));
+    }
+    out.append(headings).append('\n');
+    renderLines(out, played);
   }
 
   /**
-   * Determines which note's console String to output out of the given list of notes, based on the
-   * given point in time.
+   * Writes the whole console visualization to the given output, as above, rendering its lines in
+   * blocks of beats on the given pool. Only a few blocks per thread are rendered ahead of the one
+   * being written, so memory still does not grow with the length of the piece.
    *
-   * @param time      the current beat at which the console output is to be determined.
-   * @param workNotes the list of notes from which to derive the console output.
-   * @return the console String output based on the point in time.
+   * @param out  the output to write to.
+   * @param pool the pool to render the lines on.
+   * @throws IOException if the output cannot be written to.
    */
-  private String outputAtTimeAndSound(int time, List<IMusicNote> workNotes) {
-    List<String> consoleStrs = new ArrayList<>();
-    for (IMusicNote note : workNotes) {
-      consoleStrs.add(note.consoleString(time));
-    }
+  public void renderParallel(Appendable out, ForkJoinPool pool) throws IOException {
+    out.append(headerLine()).append('\n');
 
-    if (!(consoleStrs.contains("  X  ") || consoleStrs.contains("  |  "))) {
-      return "     "; // If there is no visualization to output at the given beat
-    } else if (consoleStrs.contains("  X  ")) {
-      return "  X  "; // If a new note begins at the given beat
-    } else {
-      return "  |  "; // If there is a visualization to output, but no note begins at this beat.
+    int lanes = this.highMidi - this.lowMidi + 1;
+    int colWidth = String.valueOf(this.toBeat).length();
+    int rowWidth = colWidth + lanes * CELL_WIDTH + 1;
+    int blockBeats = Math.max(1, BLOCK_CHARS / rowWidth);
+    LaneIndex index = new LaneIndex(byStart(this.notes), this.lowMidi, lanes);
+
+    Deque<ForkJoinTask<char[]>> ahead = new ArrayDeque<>();
+    int nextBeat = this.fromBeat;
+    while (nextBeat <= this.toBeat || !ahead.isEmpty()) {
+      while (nextBeat <= this.toBeat && ahead.size() < pool.getParallelism() * 2) {
+        int from = nextBeat;
+        int to = (int) Math.min((long) from + blockBeats - 1, this.toBeat);
+        ahead.add(pool.submit(() -> renderBlock(index, colWidth, rowWidth, from, to)));
+        nextBeat = to + 1;
+      }
+
+      char[] block = ahead.remove().join();
+      if (out instanceof Writer) {
+        ((Writer) out).write(block);
+      } else {
+        out.append(CharBuffer.wrap(block));
+      }
     }
   }
 
   /**
-   * Computes the time column String output for the given time in the song.
+   * Renders the lines for the given range of beats into a new block of characters.
    *
-   * @param currTime  the current beat number
-   * @param totalTime the total duration of the song
-   * @return the time column String output
+   * @param index    the notes of each sound.
+   * @param colWidth the width of the time column.
+   * @param rowWidth the width of each line, including its line break.
+   * @param fromBeat the first beat to render.
+   * @param toBeat   the last beat to render.
+   * @return the rendered lines.
+   */
+  private char[] renderBlock(LaneIndex index, int colWidth, int rowWidth, int fromBeat,
+                             int toBeat) {
+    int lanes = index.starts.length;
+    char[] block = new char[(toBeat - fromBeat + 1) * rowWidth];
+    int[] next = new int[lanes];
+    int[] heldUntil = new int[lanes];
+    for (int lane = 0; lane < lanes; lane += 1) {
+      next[lane] = index.firstStartingAt(lane, fromBeat);
+      heldUntil[lane] = next[lane] == 0 ? Integer.MIN_VALUE : index.heldUntil[lane][next[lane] - 1];
+    }
+
+    int rowStart = 0;
+    for (int t = fromBeat; t <= toBeat; t += 1) {
+      timeColumn(block, rowStart, colWidth, t);
+      int at = rowStart + colWidth;
+      for (int lane = 0; lane < lanes; lane += 1) {
+        int[] starts = index.starts[lane];
+        boolean started = false;
+        while (next[lane] < starts.length && starts[next[lane]] <= t) {
+          started |= starts[next[lane]] == t;
+          heldUntil[lane] = index.heldUntil[lane][next[lane]];
+          next[lane] += 1;
+        }
+
+        char[] cell;
+        if (started) {
+          cell = NOTE_START;
+        } else if (heldUntil[lane] >= t) {
+          cell = NOTE_HELD;
+        } else {
+          cell = NO_NOTE;
+        }
+        System.arraycopy(cell, 0, block, at, CELL_WIDTH);
+        at += CELL_WIDTH;
+      }
+      block[at] = '\n';
+      rowStart += rowWidth;
+    }
+    return block;
+  }
+
+  /**
+   * Represents the notes of each sound as the beats they start on and, for each of those, the
+   * last beat that any note started so far is held until. Lanes are numbered upwards from the
+   * lowest sound.
    */
-  private String timeColumn(int currTime, int totalTime) {
-    int colWidth = String.valueOf(totalTime).length();
-    int currWidth = String.valueOf(currTime).length();
+  private static final class LaneIndex {
+    private final int[][] starts;
+    private final int[][] heldUntil;
+
+    /**
+     * Constructs the index of the given notes.
+     *
+     * @param sorted  the notes, in order of their starting beats.
+     * @param lowMidi the Midi Number of the lowest sound.
+     * @param lanes   the number of sounds.
+     */
+    private LaneIndex(List<IMusicNote> sorted, int lowMidi, int lanes) {
+      int[] counts = new int[lanes];
+      for (IMusicNote note : sorted) {
+        int lane = note.midiNumber() - lowMidi;
+        if (!(note instanceof RestNote) && lane >= 0 && lane < lanes) {
+          counts[lane] += 1;
+        }
+      }
+
+      this.starts = new int[lanes][];
+      this.heldUntil = new int[lanes][];
+      for (int lane = 0; lane < lanes; lane += 1) {
+        this.starts[lane] = new int[counts[lane]];
+        this.heldUntil[lane] = new int[counts[lane]];
+      }
 
-    String buffer = "";
-    for (int t = 0; t < (colWidth - currWidth); t += 1) {
-      buffer += " ";
+      Arrays.fill(counts, 0);
+      for (IMusicNote note : sorted) {
+        int lane = note.midiNumber() - lowMidi;
+        if (note instanceof RestNote || lane < 0 || lane >= lanes) {
+          continue;
+        }
+        int i = counts[lane];
+        this.starts[lane][i] = note.getStartLocation();
+        this.heldUntil[lane][i] = i == 0 ? note.getEndLocation()
+                : Math.max(this.heldUntil[lane][i - 1], note.getEndLocation());
+        counts[lane] += 1;
+      }
     }
 
-    return String.valueOf(currTime) + buffer;
+    /**
+     * Finds the first note of the given sound that starts on or after the given beat.
+     *
+     * @param lane the sound to search.
+     * @param beat the beat to search for.
+     * @return the position of that note, or the number of notes of the sound if there is none.
+     */
+    private int firstStartingAt(int lane, int beat) {
+      int[] laneStarts = this.starts[lane];
+      int lo = 0;
+      int hi = laneStarts.length;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (laneStarts[mid] < beat) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      return lo;
+    }
+  }
+
+  /**
+   * Computes the lines of output for the console visualization for this song, not including the
+   * pitch-octave headers line.
+   *
+   * @return the lines of console output for the notes in this song.
+   */
+  public String subsequentLines() {
+    StringBuilder lines = new StringBuilder();
+    try {
+      renderLines(lines, null);
+    } catch (IOException e) {
+      // A StringBuilder is never unable to be appended to.
+      throw new IllegalStateException(e.getMessage());
+    }
+    return lines.toString();
   }
 
   /**
-   * Computes a SortedMap that maps all the SoundPairs necessary for viewing the notes in the
-   * given list to the IMusicNotes associated at each SoundPair. If there is no note with the
-   * pitch and sound of a SoundPair, its value is mapped as null.
+   * Writes the lines of output for the console visualization to the given output, not including
+   * the pitch-octave headers line. The notes are swept in order of their starting beats, keeping
+   * for each sound only the beat its latest note started on and the last beat it is held until.
+   * If only the played sounds are given, the lines are written in the compact form.
    *
-   * @param notesList the list of Notes to place into the map.
-   * @return SortedMap with IMusicNotes mapped to their corresponding SoundPairs.
+   * @param out    the output to write to.
+   * @param played the sounds to give columns to, numbered upwards from the lowest sound, or null
+   *               to write every sound's column in full.
+   * @throws IOException if the output cannot be written to.
    */
-  private SortedMap<SoundPair, List<IMusicNote>> mapNotes(List<IMusicNote> notesList) {
-    SortedMap<SoundPair, List<IMusicNote>> notesMap = new TreeMap<>();
+  private void renderLines(Appendable out, BitSet played) throws IOException {
+    int lanes = this.highMidi - this.lowMidi + 1;
+    int colWidth = String.valueOf(this.toBeat).length();
+    List<IMusicNote> sorted = byStart(this.notes);
+
+    // The column each sound is written to, or -1 for sounds left out.
+    int[] columns = new int[lanes];
+    int shown = 0;
+    for (int lane = 0; lane < lanes; lane += 1) {
+      if (played == null || played.get(lane)) {
+        columns[lane] = colWidth + shown * CELL_WIDTH;
+        shown += 1;
+      } else {
+        columns[lane] = -1;
+      }
+    }
+
+    char[] row = new char[colWidth + shown * CELL_WIDTH + 1];
+    row[row.length - 1] = '\n';
+    CharBuffer rowView = CharBuffer.wrap(row);
+    // The first line of the run of identical lines being collapsed, and how many beats it lasts.
+    char[] runRow = played == null ? null : new char[row.length];
+    int runLength = 0;
+    int[] startedAt = new int[lanes];
+    int[] heldUntil = new int[lanes];
+    Arrays.fill(startedAt, Integer.MIN_VALUE);
+    Arrays.fill(heldUntil, Integer.MIN_VALUE);
+
+    int next = 0;
+    for (int t = this.fromBeat; t <= this.toBeat; t += 1) {
+      // Takes in the notes that have started by this beat
+      while (next < sorted.size() && sorted.get(next).getStartLocation() <= t) {
+        IMusicNote note = sorted.get(next);
+        next += 1;
+        int lane = note.midiNumber() - this.lowMidi;
+        if (note instanceof RestNote || lane < 0 || lane >= lanes) {
+          continue;
+        }
+        startedAt[lane] = note.getStartLocation();
+        heldUntil[lane] = Math.max(heldUntil[lane], note.getEndLocation());
+      }
 
-    //Computes all the sound pairs necessary for viewing
-    List<SoundPair> soundPairs = soundPairs(this.lowestSound, this.highestSound);
+      timeColumn(row, 0, colWidth, t);
+      for (int lane = 0; lane < lanes; lane += 1) {
+        if (columns[lane] < 0) {
+          continue;
+        }
+        char[] cell;
+        if (startedAt[lane] == t) {
+          cell = NOTE_START; // If a new note begins at the given beat
+        } else if (heldUntil[lane] >= t) {
+          cell = NOTE_HELD; // If a note is still playing this sound
+        } else {
+          cell = NO_NOTE; // If there are no notes playing this sound
+        }
+        System.arraycopy(cell, 0, row, columns[lane], CELL_WIDTH);
+      }
+
+      if (runRow == null) {
+        if (out instanceof Writer) {
+          ((Writer) out).write(row);
+        } else {
+          out.append(rowView, 0, row.length);
+        }
+      } else if (runLength > 0
+              && Arrays.equals(row, colWidth, row.length, runRow, colWidth, runRow.length)) {
+        runLength += 1;
+      } else {
+        writeRun(out, runRow, colWidth, runLength);
+        System.arraycopy(row, 0, runRow, 0, row.length);
+        runLength = 1;
+      }
+    }
+    if (runRow != null) {
+      writeRun(out, runRow, colWidth, runLength);
+    }
+  }
 
-    //Initializes map with all the necessary sound pairs.
-    for (SoundPair pair : soundPairs) {
-      List<IMusicNote> value = new LinkedList<>();
-      notesMap.put(pair, value);
+  /**
+   * Writes the first line of a run of identical lines without its trailing spaces, marked with
+   * the number of beats in the run if there is more than one.
+   *
+   * @param out       the output to write to.
+   * @param runRow    the first line of the run, ending with a line break.
+   * @param colWidth  the width of the time column.
+   * @param runLength the number of beats in the run, or 0 if there is no run yet.
+   * @throws IOException if the output cannot be written to.
+   */
+  private static void writeRun(Appendable out, char[] runRow, int colWidth, int runLength)
+          throws IOException {
+    if (runLength == 0) {
+      return;
+    }
+    int end = runRow.length - 1;
+    while (end > colWidth && runRow[end - 1] == ' ') {
+      end -= 1;
+    }
+    out.append(CharBuffer.wrap(runRow, 0, end));
+    if (runLength > 1) {
+      out.append(' ').append(RUN_MARK).append(String.valueOf(runLength));
     }
+    out.append('\n');
+  }
 
-    //Edits map by placing notes into entries with matching SoundPair keys, overriding the
-    //initial values.
+  /**
+   * Provides the given notes in order of their starting beats, copying and sorting them only if
+   * they are not in that order already.
+   *
+   * @param notesList the notes to order.
+   * @return the notes, in order of their starting beats.
+   */
+  private static List<IMusicNote> byStart(List<IMusicNote> notesList) {
+    int prevStart = Integer.MIN_VALUE;
     for (IMusicNote note : notesList) {
-      SoundPair key = new SoundPair(note.getPitch(), note.getOctave());
-      notesMap.get(key).add(note);
+      if (note.getStartLocation() < prevStart) {
+        List<IMusicNote> sorted = new ArrayList<>(notesList);
+        sorted.sort(Comparator.comparingInt(IMusicNote::getStartLocation));
+        return sorted;
+      }
+      prevStart = note.getStartLocation();
+    }
+    return notesList;
+  }
+
+  /**
+   * Writes the time column for the given time in the song into the start of the given row.
+   *
+   * @param row      the characters to write to.
+   * @param rowStart where the row starts in those characters.
+   * @param colWidth the width of the time column.
+   * @param currTime the current beat number.
+   */
+  private void timeColumn(char[] row, int rowStart, int colWidth, int currTime) {
+    Arrays.fill(row, rowStart, rowStart + colWidth, ' ');
+    int currWidth = 1;
+    for (int rest = currTime / 10; rest > 0; rest /= 10) {
+      currWidth += 1;
     }
 
-    return notesMap;
+    int at = rowStart + (this.beatsAlignedRight ? colWidth - 1 : currWidth - 1);
+    int rest = currTime;
+    do {
+      row[at] = (char) ('0' + rest % 10);
+      rest /= 10;
+      at -= 1;
+    }
+    while (rest > 0);
   }
 
   /**
@@ -142,36 +484,29 @@ public class ConsolePrinter {
    * @return the header line for the console visualization, not including the time column.
    */
   public String headerLine() {
-    List<SoundPair> soundPairs = soundPairs(this.lowestSound, this.highestSound);
-    StringBuilder headings = new StringBuilder(initFirstColumn(this.totalDuration));
-    for (SoundPair pair : soundPairs) {
-      String toAdd;
-      String pitchString = pair.getPitch().toString();
-      String octaveString = String.valueOf(pair.getOctave());
-      if (pitchString.contains("#")) {
-        toAdd = " " + pitchString + octaveString + " ";
-      } else {
-        toAdd = "  " + pitchString + octaveString + " ";
-      }
-      headings.append(toAdd);
+    StringBuilder headings = new StringBuilder();
+    for (int i = 0; i < String.valueOf(this.toBeat).length(); i += 1) {
+      headings.append(' ');
+    }
+    for (int midi = this.lowMidi; midi <= this.highMidi; midi += 1) {
+      headings.append(heading(midi));
     }
     return headings.toString();
   }
 
   /**
-   * Computes the size of the first column in the console visualization, under which the time
-   * labels will be printed.
+   * Computes the heading of the column for the sound with the given Midi Number.
    *
-   * @return a String of spaces whose width is that which the first column will be.
+   * @param midi the Midi Number of the sound.
+   * @return the heading, such as "  C4 " or " C#4 ".
    */
-  private String initFirstColumn(int totalDuration) {
-    int totalTime = (int) Math.ceil(totalDuration);
-
-    String buffer = "";
-    for (int i = 0; i < String.valueOf(totalTime).length(); i += 1) {
-      buffer += " ";
+  private static String heading(int midi) {
+    String name = SoundPair.of(midi).toString();
+    if (name.contains("#")) {
+      return " " + name + " ";
+    } else {
+      return "  " + name + " ";
     }
-    return buffer;
   }
 
   /**
@@ -187,7 +522,7 @@ public class ConsolePrinter {
 
     firstToLast:
     for (int oct = low.getOctave(); oct <= high.getOctave(); oct += 1) {
-      for (PitchType pitch : PitchType.values()) {
+      for (PitchType pitch : PITCHES) {
         boolean tooEarly = (oct == low.getOctave()) && (pitch.compareTo(low.getPitch()) < 0);
         boolean tooLate = (oct == high.getOctave()) && (pitch.compareTo(high.getPitch()) > 0);
 
@@ -196,7 +531,7 @@ public class ConsolePrinter {
         } else if (tooLate) {
           break firstToLast;
         } else {
-          SoundPair toAdd = new SoundPair(pitch, oct);
+          SoundPair toAdd = SoundPair.of(pitch, oct);
           out.add(toAdd);
         }
       }
@@ -1,5 +1,10 @@
 package cs3500.music.view;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.ForkJoinPool;
 
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
@@ -14,6 +19,13 @@ import cs3500.music.model.ReadOnlyModel;
 public class ConsoleViewer implements IConsoleView<IReadOnlyModel<IMusicNote, IMusicPiece>> {
 
   private IReadOnlyModel<IMusicNote, IMusicPiece> model;
+  private final ForkJoinPool pool;
+  private boolean windowed = false;
+  private boolean compact = false;
+  private int fromBeat;
+  private int toBeat;
+  private int lowMidi;
+  private int highMidi;
 
   /**
    * Constructs a new ConsoleViewer object that can compute a console visualization of the song
@@ -21,7 +33,18 @@ public class ConsoleViewer implements IConsoleView<IReadOnlyModel<IMusicNote, IM
    * @param inputModel the mutable model from which to compute a read only model
    */
   public ConsoleViewer(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel) {
+    this(inputModel, null);
+  }
+
+  /**
+   * Constructs a new ConsoleViewer object, as above, that renders the lines it prints in parallel
+   * on the given pool.
+   * @param inputModel the mutable model from which to compute a read only model
+   * @param pool the pool to render on, or null to render on the calling thread.
+   */
+  public ConsoleViewer(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel, ForkJoinPool pool) {
     this.model = inputModel;
+    this.pool = pool;
   }
 
   @Override
@@ -35,14 +58,92 @@ public class ConsoleViewer implements IConsoleView<IReadOnlyModel<IMusicNote, IM
     return new ReadOnlyModel(mutable);
   }
 
+  /**
+   * Limits this view to the given window of the song, so that only the notes playing within it
+   * are looked at when the view is printed.
+   * @param fromBeat the first beat to print.
+   * @param toBeat the last beat to print.
+   * @param lowMidi the Midi Number of the lowest sound to print, or -1 for the lowest sound
+   *                playing within the beats.
+   * @param highMidi the Midi Number of the highest sound to print, or -1 for the highest sound
+   *                 playing within the beats.
+   * @throws IllegalArgumentException if the window is empty, or starts before the first beat.
+   */
+  public void setWindow(int fromBeat, int toBeat, int lowMidi, int highMidi)
+          throws IllegalArgumentException {
+    if (fromBeat < 0 || toBeat < fromBeat) {
+      throw new IllegalArgumentException("Invalid range of beats specified!");
+    }
+    if (lowMidi >= 0 && highMidi >= 0 && highMidi < lowMidi) {
+      throw new IllegalArgumentException("Invalid range of sounds specified!");
+    }
+    this.windowed = true;
+    this.fromBeat = fromBeat;
+    this.toBeat = toBeat;
+    this.lowMidi = lowMidi;
+    this.highMidi = highMidi;
+  }
+
+  /**
+   * Sets whether this view is printed in the compact form, without the sounds that are never
+   * played and with runs of identical lines collapsed into one. The compact form is always
+   * rendered on the calling thread.
+   * @param compact whether to print in the compact form.
+   */
+  public void setCompact(boolean compact) {
+    this.compact = compact;
+  }
+
+  /**
+   * Creates the printer for the whole song, or for its window if one is set.
+   * @return the printer.
+   */
+  private PrinterForConsole printer() {
+    if (this.windowed) {
+      return new PrinterForConsole(this.model, this.fromBeat, this.toBeat, this.lowMidi,
+              this.highMidi);
+    }
+    return new PrinterForConsole(this.model);
+  }
+
+  /**
+   * Writes this view to the given output, in the form it is set to be printed in.
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
+   */
+  private void print(Appendable out) throws IOException {
+    PrinterForConsole printer = printer();
+    if (this.compact) {
+      printer.renderCompact(out);
+    } else if (this.pool == null) {
+      printer.render(out);
+    } else {
+      printer.renderParallel(out, this.pool);
+    }
+  }
+
   @Override
   public String consoleView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel) {
-    return new PrinterForConsole(model).getMusicState();
+    StringBuilder out = new StringBuilder();
+    try {
+      print(out);
+    } catch (IOException e) {
+      // A StringBuilder is never unable to be appended to.
+      throw new IllegalStateException(e.getMessage());
+    }
+    return out.toString();
   }
 
   @Override
   public void run() {
-    System.out.print(this.consoleView(this.model));
+    // Prints the view as it is rendered, rather than rendering all of it first.
+    Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+    try {
+      print(out);
+      out.flush();
+    } catch (IOException e) {
+      System.err.println("Could not print the console view: " + e.getMessage());
+    }
   }
 
   @Override
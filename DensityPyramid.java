@@ -0,0 +1,134 @@
+package cs3500.music.view;
+
+/**
+ * Represents a multi-resolution occupancy summary of a piece, used to draw zoomed-out views of
+ * the score without visiting individual notes. Level k of the pyramid holds, for every sound
+ * lane, the number of sounding note-beats in each bucket of 2^k beats.
+ */
+public class DensityPyramid {
+  private final int lanes;
+  // counts[level][lane][bucket]
+  private final int[][][] counts;
+  private final int[] buckets;
+
+  /**
+   * Constructs a new DensityPyramid over the notes in the given snapshot.
+   *
+   * @param snapshot the snapshot of the piece to summarize.
+   */
+  public DensityPyramid(ScoreSnapshot snapshot) {
+    this.lanes = snapshot.laneCount();
+    int beats = Math.max(1, snapshot.getTotalDuration() + 1);
+
+    int levels = 1;
+    while ((1 << (levels - 1)) < beats) {
+      levels += 1;
+    }
+    this.counts = new int[levels][][];
+    this.buckets = new int[levels];
+    this.counts[0] = baseLevel(snapshot, beats);
+    this.buckets[0] = beats;
+
+    for (int k = 1; k < levels; k += 1) {
+      int[][] below = this.counts[k - 1];
+      this.buckets[k] = (this.buckets[k - 1] + 1) / 2;
+      int[][] level = new int[lanes][this.buckets[k]];
+      for (int lane = 0; lane < lanes; lane += 1) {
+        int[] src = below[lane];
+        int[] dst = level[lane];
+        for (int b = 0; b < this.buckets[k - 1]; b += 1) {
+          dst[b >> 1] += src[b];
+        }
+      }
+      this.counts[k] = level;
+    }
+  }
+
+  /**
+   * Computes the level 0 occupancy, one bucket per beat, with a difference array per lane so
+   * that the cost is linear in the number of notes plus the number of cells.
+   *
+   * @param snapshot the snapshot of the piece to summarize.
+   * @param beats    the number of beats in the piece.
+   * @return the per-lane, per-beat occupancy.
+   */
+  private int[][] baseLevel(ScoreSnapshot snapshot, int beats) {
+    int[][] base = new int[lanes][beats + 1];
+    for (int i = 0; i < snapshot.size(); i += 1) {
+      int lane = snapshot.laneOf(i);
+      int start = snapshot.startOf(i);
+      int end = snapshot.endOf(i);
+      if (lane < 0 || lane >= lanes || start < 0 || start >= beats || end < start) {
+        continue;
+      }
+      base[lane][start] += 1;
+      base[lane][Math.min(end + 1, beats)] -= 1;
+    }
+    for (int lane = 0; lane < lanes; lane += 1) {
+      int[] row = base[lane];
+      int running = 0;
+      for (int t = 0; t < beats; t += 1) {
+        running += row[t];
+        row[t] = running;
+      }
+    }
+    return base;
+  }
+
+  /**
+   * Provides the number of levels in this pyramid.
+   *
+   * @return the number of levels.
+   */
+  public int levels() {
+    return this.counts.length;
+  }
+
+  /**
+   * Provides the number of lanes in this pyramid.
+   *
+   * @return the number of lanes.
+   */
+  public int lanes() {
+    return this.lanes;
+  }
+
+  /**
+   * Computes the coarsest level whose buckets span no more than the given number of beats.
+   *
+   * @param beatsPerBucket the desired number of beats covered by each bucket.
+   * @return the level to draw from.
+   */
+  public int levelFor(double beatsPerBucket) {
+    int level = 0;
+    while (level + 1 < levels() && (1 << (level + 1)) <= beatsPerBucket) {
+      level += 1;
+    }
+    return level;
+  }
+
+  /**
+   * Provides the number of buckets in each lane at the given level.
+   *
+   * @param level the level of the pyramid.
+   * @return the number of buckets.
+   */
+  public int buckets(int level) {
+    return this.buckets[level];
+  }
+
+  /**
+   * Provides the number of sounding note-beats in the given bucket.
+   *
+   * @param level  the level of the pyramid.
+   * @param lane   the lane, where 0 is the lowest sound.
+   * @param bucket the bucket, which covers beats [bucket * 2^level, (bucket + 1) * 2^level).
+   * @return the note-beat count in the bucket, or 0 if the bucket is out of range.
+   */
+  public int count(int level, int lane, int bucket) {
+    if (bucket < 0 || bucket >= this.buckets[level]) {
+      return 0;
+    }
+    return this.counts[level][lane][bucket];
+  }
+}
@@ -0,0 +1,616 @@
+package cs3500.music.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cs3500.music.model.IModelListener;
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.ModelChange;
+import cs3500.music.model.MusicModel;
+import cs3500.music.model.MusicNote;
+import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.NoteEdit;
+import cs3500.music.model.Opus;
+import cs3500.music.model.Repeat;
+
+/**
+ * Represents a crash-safe record of an editing session. Every change made to the model is
+ * appended as one line to a journal file, and the journal is written and forced to disk in
+ * batches by a background thread, so the cost of saving depends on how quickly the piece is edited
+ * rather than on how long it is. Once the journal grows large, it is compacted: the state of the
+ * model is written to a snapshot file in the background, and a new journal is started.
+ *
+ * <p>The session directory holds one snapshot file and any number of numbered journal files. The
+ * snapshot starts by naming the first journal that is not included in it, then gives the number
+ * of beats in a measure and the tempo. Journal and snapshot lines use the same format as song
+ * files, plus the following:
+ *   <ul>
+ *     <li>"remove" followed by the five numbers of a note line, for a note that was removed</li>
+ *     <li>"repeat" followed by the start beat and ending beats of a repeat that was added</li>
+ *     <li>"unrepeat" followed by the start beat and ending beats of a repeat that was removed</li>
+ *   </ul>
+ * </p>
+ */
+public class EditJournal implements IModelListener {
+  private static final String SNAPSHOT = "snapshot.txt";
+  private static final String JOURNAL_PREFIX = "journal-";
+  private static final String JOURNAL_SUFFIX = ".txt";
+  private static final long FLUSH_MILLIS = 200;
+  private static final long COMPACT_BYTES = 1 << 20;
+
+  private final Path directory;
+  private final MusicalOperations<IMusicNote, IMusicPiece> model;
+  private final Object lock = new Object();
+  private List<Object> pending = new ArrayList<>();
+  private int generation;
+  private int lastCaptured;
+  private FileChannel journal;
+  private long journalBytes = 0;
+  private volatile boolean compactRequested = false;
+  private volatile boolean closed = false;
+  // Set once the session files cannot be written, after which no more changes are recorded.
+  private volatile IllegalArgumentException failure;
+  private final Thread flusher;
+
+  /**
+   * Represents the state of the model at the moment a compaction was requested.
+   */
+  private static final class Snapshot {
+    private final int generation;
+    private final int measureLength;
+    private final int tempo;
+    private final List<IMusicNote> notes;
+    private final List<Repeat> repeats;
+
+    private Snapshot(int generation, int measureLength, int tempo, List<IMusicNote> notes,
+                     List<Repeat> repeats) {
+      this.generation = generation;
+      this.measureLength = measureLength;
+      this.tempo = tempo;
+      this.notes = notes;
+      this.repeats = repeats;
+    }
+  }
+
+  /**
+   * Constructs a new EditJournal that records every change made to the given model in the given
+   * directory, and starts its background thread. If the directory holds no snapshot yet, one is
+   * taken right away, so that the session can be recovered without the original song.
+   *
+   * @param directory the session directory, which is created if it does not exist.
+   * @param model     the model whose changes to record.
+   * @throws IllegalArgumentException if the session directory cannot be written to.
+   */
+  public EditJournal(Path directory, MusicalOperations<IMusicNote, IMusicPiece> model) throws
+          IllegalArgumentException {
+    this.directory = directory;
+    this.model = model;
+    try {
+      Files.createDirectories(directory);
+      this.generation = journals(directory).isEmpty() ? 0 : lastGeneration(directory) + 1;
+      this.journal = openJournal(this.generation);
+      this.lastCaptured = this.generation;
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not open the session in [" + directory + "].");
+    }
+    if (!Files.exists(directory.resolve(SNAPSHOT))) {
+      synchronized (lock) {
+        pending.add(capture());
+      }
+    }
+    model.addListener(this);
+
+    this.flusher = new Thread(this::flushLoop, "edit-journal");
+    this.flusher.setDaemon(true);
+    this.flusher.start();
+  }
+
+  /**
+   * Rebuilds the model of a session from its snapshot and journals. If the directory holds no
+   * snapshot, the model is read from the given original song instead. If the session cannot be
+   * recovered, the directory is set aside under a new name, so that a fresh session can start in
+   * its place, and the model is read from the original song.
+   *
+   * @param directory the session directory.
+   * @param original  the song the session started from.
+   * @return the model as it was after the last change written to the journal, or as the original
+   *         song has it if the session could not be recovered.
+   * @throws IllegalArgumentException if neither the session nor the original song can be read, or
+   *                                  if a session that cannot be read cannot be set aside.
+   */
+  public static MusicalOperations<IMusicNote, IMusicPiece> recover(Path directory,
+                                                                   Readable original) throws
+          IllegalArgumentException {
+    // The song is read up front, so that it can still be used once recovery has failed.
+    String song = readAll(original);
+    try {
+      return replaySession(directory, song);
+    } catch (IOException | RuntimeException e) {
+      Path aside = directory.resolveSibling(directory.getFileName() + ".broken-"
+              + System.currentTimeMillis());
+      try {
+        Files.move(directory, aside);
+      } catch (IOException moveFailed) {
+        throw new IllegalArgumentException("Could not recover the session in [" + directory
+                + "] or set it aside.");
+      }
+      System.err.println("Could not recover the session in [" + directory + "], so it was moved "
+              + "to [" + aside + "]: " + e.getMessage());
+      return MusicReader.parseFile(new StringReader(song), new MusicModel.ModelBuilder());
+    }
+  }
+
+  /**
+   * Rebuilds the model of a session from its snapshot and journals, as described by recover.
+   *
+   * @param directory the session directory.
+   * @param song      the text of the song the session started from.
+   * @return the model as it was after the last change written to the journal.
+   * @throws IOException if the session files cannot be read.
+   * @throws IllegalArgumentException if the session files are malformed.
+   */
+  private static MusicalOperations<IMusicNote, IMusicPiece> replaySession(Path directory,
+                                                                          String song)
+          throws IOException, IllegalArgumentException {
+    Path snapshot = directory.resolve(SNAPSHOT);
+    MusicalOperations<IMusicNote, IMusicPiece> model;
+    int first = 0;
+    if (Files.exists(snapshot)) {
+      try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+        first = Integer.parseInt(headerValue(reader, "generation"));
+        int measureLength = Integer.parseInt(headerValue(reader, "measure"));
+        int tempo = Integer.parseInt(headerValue(reader, "tempo"));
+        model = new MusicModel(new Opus(measureLength, tempo), measureLength, tempo);
+        replay(reader, model);
+      }
+    } else {
+      model = MusicReader.parseFile(new StringReader(song), new MusicModel.ModelBuilder());
+    }
+
+    for (Map.Entry<Integer, Path> entry : journals(directory).entrySet()) {
+      if (entry.getKey() >= first) {
+        // A line cut short by a crash can only be the last one, and is not replayed.
+        String text = new String(Files.readAllBytes(entry.getValue()), StandardCharsets.UTF_8);
+        text = text.substring(0, text.lastIndexOf('\n') + 1);
+        replay(new BufferedReader(new StringReader(text)), model);
+      }
+    }
+    return model;
+  }
+
+  /**
+   * Reads the next line of a snapshot header, which must be the given name followed by a value.
+   *
+   * @param reader the snapshot being read.
+   * @param name   the name the line must start with.
+   * @return the value.
+   * @throws IOException if the snapshot cannot be read.
+   * @throws IllegalArgumentException if the line is missing or does not have the given name.
+   */
+  private static String headerValue(BufferedReader reader, String name) throws IOException,
+          IllegalArgumentException {
+    String line = reader.readLine();
+    String[] words = line == null ? new String[0] : line.trim().split("\\s+");
+    if (words.length != 2 || !words[0].equals(name)) {
+      throw new IllegalArgumentException("Malformed snapshot header, expected " + name + ".");
+    }
+    return words[1];
+  }
+
+  /**
+   * Reads everything the given source has to give.
+   *
+   * @param source the source to read.
+   * @return the text read.
+   * @throws IllegalArgumentException if the source cannot be read.
+   */
+  private static String readAll(Readable source) throws IllegalArgumentException {
+    StringBuilder text = new StringBuilder();
+    CharBuffer buffer = CharBuffer.allocate(8192);
+    try {
+      while (source.read(buffer) >= 0) {
+        buffer.flip();
+        text.append(buffer);
+        buffer.clear();
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Could not read the song: " + e.getMessage());
+    }
+    return text.toString();
+  }
+
+  @Override
+  public void modelChanged(List<ModelChange> changes) {
+    if (this.failure != null) {
+      return;
+    }
+    StringBuilder lines = new StringBuilder();
+    boolean mustCompact = this.compactRequested;
+    for (ModelChange change : changes) {
+      switch (change.getKind()) {
+        case NOTE_ADDED:
+          appendNote(lines, "note", change.getNote());
+          break;
+        case NOTE_REMOVED:
+          appendNote(lines, "remove", change.getNote());
+          break;
+        case NOTE_REPLACED:
+          appendNote(lines, "remove", change.getNote());
+          appendNote(lines, "note", change.getReplacement());
+          break;
+        case TEMPO_CHANGED:
+          lines.append("tempo ").append(this.model.getTempo()).append('\n');
+          break;
+        case REPEAT_ADDED:
+          lines.append(repeatLine("repeat", change.getRepeat()));
+          break;
+        case REPEAT_REMOVED:
+          lines.append(repeatLine("unrepeat", change.getRepeat()));
+          break;
+        default:
+          for (IMusicNote note : change.getJoinedNotes()) {
+            appendNote(lines, "note", note);
+          }
+          break;
+      }
+    }
+
+    synchronized (lock) {
+      pending.add(lines.toString());
+      if (mustCompact) {
+        this.compactRequested = false;
+        pending.add(capture());
+      }
+    }
+  }
+
+  /**
+   * Writes every change recorded so far to disk, and stops the background thread. Changes made
+   * afterwards are not recorded.
+   *
+   * @throws IllegalArgumentException if some changes could not be written to the session.
+   */
+  public void close() throws IllegalArgumentException {
+    this.model.removeListener(this);
+    synchronized (lock) {
+      this.closed = true;
+      lock.notifyAll();
+    }
+    try {
+      this.flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (this.failure != null) {
+      throw this.failure;
+    }
+  }
+
+  /**
+   * Captures the state of the model, to be written to the snapshot file in the background. The
+   * changes recorded after this point go to the next journal. Must be called while holding the
+   * lock.
+   *
+   * @return the captured state.
+   */
+  private Snapshot capture() {
+    this.lastCaptured += 1;
+    return new Snapshot(this.lastCaptured, this.model.getMeasureLength(), this.model.getTempo(),
+            this.model.getPiece().getNotes(), new ArrayList<>(this.model.getRepeats()));
+  }
+
+  /**
+   * Writes the recorded changes to disk in batches, once every FLUSH_MILLIS, until closed. If the
+   * session files cannot be written, recording stops, since later lines would not follow on from
+   * the ones lost, and close reports the failure.
+   */
+  private void flushLoop() {
+    while (true) {
+      List<Object> batch;
+      synchronized (lock) {
+        if (!this.closed) {
+          try {
+            lock.wait(FLUSH_MILLIS);
+          } catch (InterruptedException e) {
+            this.closed = true;
+          }
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+      }
+      try {
+        flush(batch);
+      } catch (IOException e) {
+        this.failure = new IllegalArgumentException("Could not write the session in ["
+                + this.directory + "]: " + e.getMessage());
+      }
+
+      if (this.closed || this.failure != null) {
+        try {
+          this.journal.close();
+        } catch (IOException e) {
+          if (this.failure == null) {
+            this.failure = new IllegalArgumentException("Could not close the journal in ["
+                    + this.directory + "]: " + e.getMessage());
+          }
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes a batch of recorded changes and snapshots, in order, then forces the journal to disk.
+   *
+   * @param batch the lines and snapshots to write.
+   * @throws IOException if the session files cannot be written.
+   */
+  private void flush(List<Object> batch) throws IOException {
+    StringBuilder lines = new StringBuilder();
+    for (Object entry : batch) {
+      if (entry instanceof Snapshot) {
+        append(lines);
+        lines.setLength(0);
+        compact((Snapshot) entry);
+      } else {
+        lines.append((String) entry);
+      }
+    }
+    append(lines);
+    this.journal.force(false);
+    if (this.journalBytes > COMPACT_BYTES) {
+      this.compactRequested = true;
+    }
+  }
+
+  /**
+   * Appends the given lines to the current journal.
+   *
+   * @param lines the lines to append.
+   * @throws IOException if the journal cannot be written.
+   */
+  private void append(CharSequence lines) throws IOException {
+    if (lines.length() == 0) {
+      return;
+    }
+    ByteBuffer bytes = StandardCharsets.UTF_8.encode(lines.toString());
+    this.journalBytes += bytes.remaining();
+    while (bytes.hasRemaining()) {
+      this.journal.write(bytes);
+    }
+  }
+
+  /**
+   * Starts the journal that follows the given snapshot, then replaces the snapshot file with it
+   * and deletes the journals it includes. The snapshot is written to a temporary file and moved
+   * into place, so that a crash leaves either the old snapshot or the new one.
+   *
+   * @param snapshot the captured state to write.
+   * @throws IOException if the session files cannot be written.
+   */
+  private void compact(Snapshot snapshot) throws IOException {
+    this.journal.force(false);
+    this.journal.close();
+    this.generation = snapshot.generation;
+    this.journal = openJournal(this.generation);
+    this.journalBytes = 0;
+
+    Path temp = this.directory.resolve(SNAPSHOT + ".tmp");
+    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      Writer writer = Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder(), -1);
+      writer.write("generation " + snapshot.generation + "\n");
+      writer.write("measure " + snapshot.measureLength + "\n");
+      writer.write("tempo " + snapshot.tempo + "\n");
+      StringBuilder line = new StringBuilder();
+      for (IMusicNote note : snapshot.notes) {
+        line.setLength(0);
+        appendNote(line, "note", note);
+        writer.write(line.toString());
+      }
+      for (Repeat repeat : snapshot.repeats) {
+        writer.write(repeatLine("repeat", repeat));
+      }
+      writer.flush();
+      out.force(true);
+    }
+    Files.move(temp, this.directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+
+    for (Map.Entry<Integer, Path> entry : journals(this.directory).entrySet()) {
+      if (entry.getKey() < snapshot.generation) {
+        Files.deleteIfExists(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Opens the journal with the given number for appending.
+   *
+   * @param number the number of the journal.
+   * @return the open journal.
+   * @throws IOException if the journal cannot be opened.
+   */
+  private FileChannel openJournal(int number) throws IOException {
+    return FileChannel.open(this.directory.resolve(JOURNAL_PREFIX + number + JOURNAL_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Finds the journals in the given session directory, in order of their numbers.
+   *
+   * @param directory the session directory.
+   * @return the journal files by number.
+   * @throws IOException if the directory cannot be listed.
+   */
+  private static TreeMap<Integer, Path> journals(Path directory) throws IOException {
+    TreeMap<Integer, Path> found = new TreeMap<>();
+    if (!Files.isDirectory(directory)) {
+      return found;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+            JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        String number = name.substring(JOURNAL_PREFIX.length(),
+                name.length() - JOURNAL_SUFFIX.length());
+        try {
+          found.put(Integer.parseInt(number), file);
+        } catch (NumberFormatException e) {
+          // Not a journal written by this class.
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Provides the highest journal number in the given session directory.
+   *
+   * @param directory the session directory, which must hold at least one journal.
+   * @return the highest journal number.
+   * @throws IOException if the directory cannot be listed.
+   */
+  private static int lastGeneration(Path directory) throws IOException {
+    return journals(directory).lastKey();
+  }
+
+  /**
+   * Applies every line read from the given reader to the given model. Consecutive note lines are
+   * applied as one batch of edits, in which the note a remove line names is found by all five of
+   * its numbers through an index the batch keeps, rather than by searching the whole piece.
+   *
+   * @param reader the lines to apply.
+   * @param model  the model to apply them to.
+   * @throws IOException if the lines cannot be read.
+   * @throws IllegalArgumentException if a line is malformed.
+   */
+  private static void replay(BufferedReader reader, MusicalOperations<IMusicNote, IMusicPiece>
+          model) throws IOException, IllegalArgumentException {
+    List<NoteEdit<IMusicNote>> edits = new ArrayList<>();
+    String line;
+    while ((line = reader.readLine()) != null) {
+      String[] words = line.trim().split("\\s+");
+      if (words[0].isEmpty()) {
+        continue;
+      }
+      try {
+        switch (words[0]) {
+          case "note":
+            edits.add(NoteEdit.write(parseNote(words)));
+            break;
+          case "remove":
+            edits.add(NoteEdit.remove(parseNote(words)));
+            break;
+          case "tempo":
+            int tempo = Integer.parseInt(words[1]);
+            applyAll(model, edits);
+            model.setTempo(tempo);
+            break;
+          case "repeat":
+            Repeat added = parseRepeat(words);
+            applyAll(model, edits);
+            model.addRepeat(added);
+            break;
+          case "unrepeat":
+            Repeat removed = parseRepeat(words);
+            applyAll(model, edits);
+            model.removeRepeat(removed);
+            break;
+          default:
+            throw new IllegalArgumentException("Bad line type: " + words[0]);
+        }
+      } catch (IndexOutOfBoundsException | NumberFormatException e) {
+        throw new IllegalArgumentException("Malformed line: " + line);
+      }
+    }
+    applyAll(model, edits);
+  }
+
+  /**
+   * Applies the given batch of note edits to the given model, then empties the batch.
+   *
+   * @param model the model to edit.
+   * @param edits the edits to apply.
+   */
+  private static void applyAll(MusicalOperations<IMusicNote, IMusicPiece> model,
+                               List<NoteEdit<IMusicNote>> edits) {
+    if (!edits.isEmpty()) {
+      model.applyEdits(edits);
+      edits.clear();
+    }
+  }
+
+  /**
+   * Reads the note described by a note or remove line.
+   *
+   * @param words the words of the line.
+   * @return the described note.
+   */
+  private static IMusicNote parseNote(String[] words) {
+    return new MusicNote(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+            Integer.parseInt(words[3]), Integer.parseInt(words[4]), Integer.parseInt(words[5]));
+  }
+
+  /**
+   * Reads the repeat described by a repeat or unrepeat line.
+   *
+   * @param words the words of the line.
+   * @return the described repeat.
+   */
+  private static Repeat parseRepeat(String[] words) {
+    List<Integer> endings = new ArrayList<>();
+    for (int i = 2; i < words.length; i += 1) {
+      endings.add(Integer.parseInt(words[i]));
+    }
+    return new Repeat(Integer.parseInt(words[1]), endings);
+  }
+
+  /**
+   * Appends a line describing the given note, in the format of a song file note line.
+   *
+   * @param out  the text to append to.
+   * @param type the type of line.
+   * @param note the note to describe.
+   */
+  private static void appendNote(StringBuilder out, String type, IMusicNote note) {
+    out.append(type).append(' ')
+            .append(note.getStartLocation()).append(' ')
+            .append(note.getEndLocation() + 1).append(' ')
+            .append(note.getInstrument()).append(' ')
+            .append(note.midiNumber()).append(' ')
+            .append(note.getVolume()).append('\n');
+  }
+
+  /**
+   * Computes a line describing the given repeat.
+   *
+   * @param type   the type of line.
+   * @param repeat the repeat to describe.
+   * @return the line.
+   */
+  private static String repeatLine(String type, Repeat repeat) {
+    StringBuilder out = new StringBuilder(type).append(' ').append(repeat.getStartBeat());
+    for (Integer ending : repeat.getEndings()) {
+      out.append(' ').append(ending);
+    }
+    return out.append('\n').toString();
+  }
+}
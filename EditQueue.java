@@ -0,0 +1,352 @@
+package cs3500.music.controller;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import cs3500.music.model.ConcurrentMusicModel;
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.ModelChange;
+import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.NoteEdit;
+import cs3500.music.model.SnapshotModel;
+import cs3500.music.util.EditorMetrics;
+import cs3500.music.util.MusicEvents;
+
+/**
+ * Represents a single-writer queue of edits to a model. Controllers submit edits from the Event
+ * Dispatch Thread and return immediately; a background thread applies the pending edits in
+ * batches and then prepares a versioned, read-only copy of the model, along with the changes
+ * the batch made. Once per frame, the Event Dispatch Thread publishes the latest copy through a
+ * single SnapshotModel, whose listeners are told only what changed.
+ *
+ * <p>Note edits submitted with a key, such as those made by clicking the same piano key again and
+ * again, are held back until the end of the frame, and an edit that only carries on from the one
+ * before it with the same key is merged into it. Whether edits are merged depends only on the
+ * order of inputs and frames, never on when the writer thread gets to them, and a merged edit
+ * leaves the model just as the two edits would have.</p>
+ */
+public class EditQueue {
+  private final ConcurrentMusicModel model;
+  private final Object lock = new Object();
+  private List<Edit> pending = new ArrayList<>();
+  // Edits submitted with a key since the last frame, handed to the writer thread by publish.
+  private final List<Edit> framed = new ArrayList<>();
+  // The number given to the latest edit submitted, counting from one.
+  private long submitted = 0;
+  private volatile Consumer<IllegalArgumentException> onRejected = e -> { };
+  private final List<ModelChange> batchChanges = new ArrayList<>();
+  private final SnapshotModel published;
+  private IReadOnlyModel<IMusicNote, IMusicPiece> ready;
+  private List<ModelChange> readyChanges = new ArrayList<>();
+  private int readyEdits = 0;
+  // When the input behind the oldest edit not yet published was made, in milliseconds.
+  private long readySince = Long.MAX_VALUE;
+  // The numbers of the latest edits in the prepared and in the published copies of the model.
+  private long readyThrough = 0;
+  private volatile long publishedThrough = 0;
+
+  /**
+   * Represents an edit waiting to be applied. Note edits with the same non-null key in the same
+   * frame are merged when one carries on from the other.
+   */
+  private static final class Edit {
+    private final Object key;
+    private final NoteEdit<IMusicNote> noteEdit;
+    private final Consumer<MusicalOperations<IMusicNote, IMusicPiece>> action;
+    private final long number;
+    // When the input that led to this edit, or to the first edit merged into it, was made.
+    private final long inputMillis;
+
+    private Edit(Consumer<MusicalOperations<IMusicNote, IMusicPiece>> action, long number,
+                 long inputMillis) {
+      this.key = null;
+      this.noteEdit = null;
+      this.action = action;
+      this.number = number;
+      this.inputMillis = inputMillis;
+    }
+
+    private Edit(Object key, NoteEdit<IMusicNote> noteEdit, long number, long inputMillis) {
+      this.key = key;
+      this.noteEdit = noteEdit;
+      this.action = m -> apply(m, noteEdit);
+      this.number = number;
+      this.inputMillis = inputMillis;
+    }
+  }
+
+  /**
+   * Constructs a new EditQueue over the given model and starts its writer thread. From this point
+   * on, the model should only be mutated through this queue.
+   *
+   * @param model the model to apply edits to.
+   */
+  public EditQueue(MusicalOperations<IMusicNote, IMusicPiece> model) {
+    this.model = new ConcurrentMusicModel(model);
+    this.published = new SnapshotModel(this.model.snapshot());
+    this.model.addListener(this.batchChanges::addAll);
+
+    Thread writer = new Thread(this::drain, "model-edit-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Sets what is done with each edit the model rejects. The handler is run on the Event Dispatch
+   * Thread; by default, rejected edits are ignored.
+   *
+   * @param handler the handler, given the reason the edit was rejected.
+   */
+  public void setRejectionHandler(Consumer<IllegalArgumentException> handler) {
+    this.onRejected = handler;
+  }
+
+  /**
+   * Submits an edit to be applied to the model on the writer thread. Any note edits held back in
+   * the current frame are handed over first, so that edits are applied in the order submitted.
+   *
+   * @param action the edit to apply.
+   */
+  public void submit(Consumer<MusicalOperations<IMusicNote, IMusicPiece>> action) {
+    long inputMillis = inputMillis();
+    synchronized (lock) {
+      pending.addAll(framed);
+      framed.clear();
+      submitted += 1;
+      pending.add(new Edit(action, submitted, inputMillis));
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Submits a note edit to be applied to the model on the writer thread at the end of the current
+   * frame. If an earlier edit with the same key is held back in this frame, and this edit swaps
+   * out the very note that one wrote, the two are merged into one edit.
+   *
+   * @param key  the key by which to merge bursts of edits.
+   * @param edit the edit to apply.
+   * @return the number of the edit, by which to tell whether it has been published yet.
+   */
+  public long submit(Object key, NoteEdit<IMusicNote> edit) {
+    long inputMillis = inputMillis();
+    synchronized (lock) {
+      submitted += 1;
+      for (int i = framed.size() - 1; i >= 0; i -= 1) {
+        Edit earlier = framed.get(i);
+        if (key.equals(earlier.key)) {
+          NoteEdit<IMusicNote> merged = merge(earlier.noteEdit, edit);
+          if (merged != null) {
+            framed.set(i, new Edit(key, merged, submitted, earlier.inputMillis));
+            return submitted;
+          }
+          break;
+        }
+      }
+      framed.add(new Edit(key, edit, submitted, inputMillis));
+      return submitted;
+    }
+  }
+
+  /**
+   * Tells whether the published model reflects the edit with the given number, whether the edit
+   * was applied or rejected.
+   *
+   * @param number the number the edit was given when submitted.
+   * @return true if the edit has been published.
+   */
+  public boolean isPublished(long number) {
+    return number <= this.publishedThrough;
+  }
+
+  /**
+   * Provides when the input behind an edit being submitted now was made. Edits submitted while
+   * handling an input are timed from when that input was made.
+   *
+   * @return the time of the input, in milliseconds.
+   */
+  private static long inputMillis() {
+    return EventQueue.isDispatchThread() ? EventQueue.getMostRecentEventTime()
+            : System.currentTimeMillis();
+  }
+
+  /**
+   * Merges two note edits into one that leaves the model as applying them in order would, if the
+   * second swaps out the note the first wrote.
+   *
+   * @param first  the earlier edit.
+   * @param second the later edit.
+   * @return the merged edit, or null if the second does not carry on from the first.
+   */
+  private static NoteEdit<IMusicNote> merge(NoteEdit<IMusicNote> first,
+                                            NoteEdit<IMusicNote> second) {
+    IMusicNote written;
+    switch (first.getKind()) {
+      case WRITE:
+        written = first.getNote();
+        break;
+      case REPLACE:
+        written = first.getReplacement();
+        break;
+      default:
+        return null;
+    }
+    if (second.getKind() != NoteEdit.Kind.REPLACE || second.getNote() != written) {
+      return null;
+    }
+    return first.getKind() == NoteEdit.Kind.WRITE ? NoteEdit.write(second.getReplacement())
+            : NoteEdit.replace(first.getNote(), second.getReplacement());
+  }
+
+  /**
+   * Applies the given note edit to the given model.
+   *
+   * @param model the model to edit.
+   * @param edit  the edit to apply.
+   * @throws IllegalArgumentException if the model rejects the edit.
+   */
+  private static void apply(MusicalOperations<IMusicNote, IMusicPiece> model,
+                            NoteEdit<IMusicNote> edit) throws IllegalArgumentException {
+    switch (edit.getKind()) {
+      case WRITE:
+        model.writeNote(edit.getNote());
+        break;
+      case REMOVE:
+        model.removeNote(edit.getNote());
+        break;
+      default:
+        model.replaceNote(edit.getNote(), edit.getReplacement());
+        break;
+    }
+  }
+
+  /**
+   * Provides the version of the most recently published copy of the model. The version increases
+   * by one for every batch of edits applied.
+   *
+   * @return the latest version.
+   */
+  public long getVersion() {
+    return this.model.getVersion();
+  }
+
+  /**
+   * Provides the read-only model the views should show. It is the same object for the lifetime of
+   * this queue, and moves on to a newer copy of the model whenever publish is called.
+   *
+   * @return the published model.
+   */
+  public IReadOnlyModel<IMusicNote, IMusicPiece> getLatest() {
+    return this.published;
+  }
+
+  /**
+   * Publishes the most recently prepared copy of the model, if there is one, telling the listeners
+   * of the published model about every change made since the last publication. Listeners are run
+   * on the calling thread, which should be the Event Dispatch Thread.
+   *
+   * @return true if a newer copy was published.
+   */
+  public boolean publish() {
+    MusicEvents.Refresh event = new MusicEvents.Refresh();
+    event.begin();
+    IReadOnlyModel<IMusicNote, IMusicPiece> next;
+    List<ModelChange> changes;
+    int edits;
+    long since;
+    synchronized (lock) {
+      // This is the end of a frame, so the note edits held back during it are applied.
+      if (!framed.isEmpty()) {
+        pending.addAll(framed);
+        framed.clear();
+        lock.notifyAll();
+      }
+      if (this.ready == null) {
+        return false;
+      }
+      next = this.ready;
+      changes = this.readyChanges;
+      edits = this.readyEdits;
+      since = this.readySince;
+      this.publishedThrough = this.readyThrough;
+      this.ready = null;
+      this.readyChanges = new ArrayList<>();
+      this.readyEdits = 0;
+      this.readySince = Long.MAX_VALUE;
+    }
+    this.published.advance(next, changes);
+    event.end();
+    if (event.shouldCommit()) {
+      event.edits = edits;
+      event.changes = changes.size();
+      event.latency = Math.max(0, System.currentTimeMillis() - since);
+      event.commit();
+    }
+    return true;
+  }
+
+  /**
+   * Applies pending edits in batches for as long as the application runs.
+   */
+  private void drain() {
+    while (true) {
+      List<Edit> batch;
+      synchronized (lock) {
+        while (pending.isEmpty()) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        batch = pending;
+        pending = new ArrayList<>();
+      }
+
+      MusicEvents.ModelEdit event = new MusicEvents.ModelEdit();
+      event.begin();
+      List<IllegalArgumentException> rejected = new ArrayList<>();
+      this.model.update(m -> {
+        for (Edit edit : batch) {
+          try {
+            edit.action.accept(m);
+          } catch (IllegalArgumentException e) {
+            // An invalid edit is dropped and reported; the rest of the batch is still applied.
+            rejected.add(e);
+          }
+        }
+      });
+      EditorMetrics.getInstance().editsApplied(batch.size() - rejected.size());
+      Consumer<IllegalArgumentException> handler = this.onRejected;
+      for (IllegalArgumentException e : rejected) {
+        EventQueue.invokeLater(() -> handler.accept(e));
+      }
+      event.end();
+      if (event.shouldCommit()) {
+        event.edits = batch.size();
+        event.rejected = rejected.size();
+        event.changes = this.batchChanges.size();
+        event.commit();
+      }
+
+      long oldest = Long.MAX_VALUE;
+      long through = 0;
+      for (Edit edit : batch) {
+        oldest = Math.min(oldest, edit.inputMillis);
+        through = Math.max(through, edit.number);
+      }
+      IReadOnlyModel<IMusicNote, IMusicPiece> copy = this.model.snapshot();
+      synchronized (lock) {
+        this.ready = copy;
+        this.readyChanges.addAll(this.batchChanges);
+        this.readyEdits += batch.size();
+        this.readySince = Math.min(this.readySince, oldest);
+        this.readyThrough = Math.max(this.readyThrough, through);
+      }
+      this.batchChanges.clear();
+    }
+  }
+}
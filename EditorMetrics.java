@@ -0,0 +1,266 @@
+package cs3500.music.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.SoundPair;
+
+/**
+ * Keeps the live metrics of the MusicEditor, and exposes them over JMX as the MBean
+ * cs3500.music:type=EditorMetrics. There is one instance for the whole application; the views and
+ * the edit queue record into it as they work, and the song and the clocks being shown are read
+ * from whatever was last given to watch.
+ *
+ * <p>Recording never locks: counts are kept in adders and atomic arrays, and times in a
+ * LatencyHistogram. Anything worked out from them, such as the note count or a percentile, is only
+ * worked out when it is read.</p>
+ */
+public final class EditorMetrics implements EditorMetricsMBean {
+  private static final EditorMetrics INSTANCE = new EditorMetrics();
+  private static final String NAME = "cs3500.music:type=EditorMetrics";
+  // Edits are counted per second in a ring of slots, of which the last few full seconds are read.
+  private static final int RATE_SLOTS = 16;
+  private static final int RATE_SECONDS = 10;
+
+  private volatile IReadOnlyModel<IMusicNote, IMusicPiece> model;
+  private volatile LongSupplier version = () -> 0;
+  private volatile IntSupplier audioBeat;
+  private volatile IntSupplier guiBeat;
+  private volatile IntSupplier tempo;
+
+  private final LongAdder edits = new LongAdder();
+  private final AtomicLongArray editSeconds = new AtomicLongArray(RATE_SLOTS);
+  private final AtomicLongArray editCounts = new AtomicLongArray(RATE_SLOTS);
+
+  private final LatencyHistogram repaints = new LatencyHistogram();
+  private volatile long lastRepaint;
+
+  private final LongAdder rebuilds = new LongAdder();
+  private final LongAdder rebuildNanos = new LongAdder();
+  private volatile long lastRebuild;
+
+  private EditorMetrics() {
+  }
+
+  /**
+   * Provides the metrics of this MusicEditor.
+   *
+   * @return the one instance of EditorMetrics.
+   */
+  public static EditorMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server, unless they already are.
+   *
+   * @throws IllegalStateException if the MBean server will not take them.
+   */
+  public static void register() throws IllegalStateException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(INSTANCE, new ObjectName(NAME));
+    } catch (InstanceAlreadyExistsException e) {
+      // Every controller registers the metrics, and only the first one needs to.
+    } catch (JMException e) {
+      throw new IllegalStateException("Could not register the editor metrics: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the song being edited from the given model from now on.
+   *
+   * @param model   the model the views are showing.
+   * @param version provides the version of that model.
+   */
+  public void watchModel(IReadOnlyModel<IMusicNote, IMusicPiece> model, LongSupplier version) {
+    this.model = model;
+    this.version = version;
+  }
+
+  /**
+   * Reads the clocks of the views playing and showing the song from now on, to tell how far apart
+   * they have drifted.
+   *
+   * @param audioBeat provides the beat being played.
+   * @param guiBeat   provides the beat being shown.
+   * @param tempo     provides the tempo of the song, in microseconds per beat.
+   */
+  public void watchClocks(IntSupplier audioBeat, IntSupplier guiBeat, IntSupplier tempo) {
+    this.audioBeat = audioBeat;
+    this.guiBeat = guiBeat;
+    this.tempo = tempo;
+  }
+
+  /**
+   * Records that a batch of edits was applied to the model. Only the one thread applying edits
+   * should call this.
+   *
+   * @param count the number of edits in the batch.
+   */
+  public void editsApplied(int count) {
+    this.edits.add(count);
+    long second = System.nanoTime() / 1_000_000_000L;
+    int slot = (int) (second % RATE_SLOTS);
+    if (this.editSeconds.get(slot) != second) {
+      this.editCounts.set(slot, 0);
+      this.editSeconds.set(slot, second);
+    }
+    this.editCounts.addAndGet(slot, count);
+  }
+
+  /**
+   * Records how long one repaint of the editor panel took.
+   *
+   * @param nanos the time taken, in nanoseconds.
+   */
+  public void repainted(long nanos) {
+    this.repaints.record(nanos);
+    this.lastRepaint = nanos;
+  }
+
+  /**
+   * Records how long one rebuild of the MIDI sequence took.
+   *
+   * @param nanos the time taken, in nanoseconds.
+   */
+  public void sequenceRebuilt(long nanos) {
+    this.rebuilds.increment();
+    this.rebuildNanos.add(nanos);
+    this.lastRebuild = nanos;
+  }
+
+  @Override
+  public int getNoteCount() {
+    IReadOnlyModel<IMusicNote, IMusicPiece> watched = this.model;
+    return watched == null ? 0
+            : watched.getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE).size();
+  }
+
+  @Override
+  public String getPitchRange() {
+    IReadOnlyModel<IMusicNote, IMusicPiece> watched = this.model;
+    if (watched == null) {
+      return "";
+    }
+    List<IMusicNote> notes = watched.getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    if (notes.isEmpty()) {
+      return "";
+    }
+    int low = Integer.MAX_VALUE;
+    int high = Integer.MIN_VALUE;
+    for (IMusicNote note : notes) {
+      low = Math.min(low, note.midiNumber());
+      high = Math.max(high, note.midiNumber());
+    }
+    return soundName(low) + " to " + soundName(high);
+  }
+
+  @Override
+  public long getModelVersion() {
+    return this.version.getAsLong();
+  }
+
+  @Override
+  public long getEditsApplied() {
+    return this.edits.sum();
+  }
+
+  @Override
+  public double getEditsPerSecond() {
+    // Only full seconds are counted, so the one under way does not drag the rate down.
+    long now = System.nanoTime() / 1_000_000_000L;
+    long total = 0;
+    for (int slot = 0; slot < RATE_SLOTS; slot += 1) {
+      long second = this.editSeconds.get(slot);
+      if (second < now && second >= now - RATE_SECONDS) {
+        total += this.editCounts.get(slot);
+      }
+    }
+    return (double) total / RATE_SECONDS;
+  }
+
+  @Override
+  public long getRepaintCount() {
+    return this.repaints.getCount();
+  }
+
+  @Override
+  public double getLastRepaintMillis() {
+    return this.lastRepaint / 1e6;
+  }
+
+  @Override
+  public double getRepaintP50Millis() {
+    return this.repaints.percentile(0.5) / 1e6;
+  }
+
+  @Override
+  public double getRepaintP99Millis() {
+    return this.repaints.percentile(0.99) / 1e6;
+  }
+
+  @Override
+  public double getRepaintMaxMillis() {
+    return this.repaints.getMax() / 1e6;
+  }
+
+  @Override
+  public long getSequenceRebuildCount() {
+    return this.rebuilds.sum();
+  }
+
+  @Override
+  public double getLastSequenceRebuildMillis() {
+    return this.lastRebuild / 1e6;
+  }
+
+  @Override
+  public double getTotalSequenceRebuildMillis() {
+    return this.rebuildNanos.sum() / 1e6;
+  }
+
+  @Override
+  public int getClockDriftBeats() {
+    IntSupplier audio = this.audioBeat;
+    IntSupplier gui = this.guiBeat;
+    return audio == null || gui == null ? 0 : audio.getAsInt() - gui.getAsInt();
+  }
+
+  @Override
+  public double getClockDriftMillis() {
+    IntSupplier beatLength = this.tempo;
+    return beatLength == null ? 0 : getClockDriftBeats() * beatLength.getAsInt() / 1000.0;
+  }
+
+  @Override
+  public void reset() {
+    this.repaints.reset();
+    this.lastRepaint = 0;
+    this.rebuilds.reset();
+    this.rebuildNanos.reset();
+    this.lastRebuild = 0;
+  }
+
+  /**
+   * Names the sound of the given Midi Number, such as C4 for 60.
+   *
+   * @param midi the Midi Number.
+   * @return the name of the sound.
+   */
+  private static String soundName(int midi) {
+    return SoundPair.of(midi).toString();
+  }
+}
@@ -0,0 +1,120 @@
+package cs3500.music.util;
+
+/**
+ * The management interface of the EditorMetrics, through which the live state of a running
+ * MusicEditor can be read over JMX, such as from JConsole. Times are given in milliseconds.
+ */
+public interface EditorMetricsMBean {
+
+  /**
+   * Provides the number of notes in the song being edited.
+   *
+   * @return the number of notes, or 0 if no song is being edited.
+   */
+  int getNoteCount();
+
+  /**
+   * Provides the lowest and highest sounds in the song being edited, such as "C3 to G5".
+   *
+   * @return the range of sounds, or an empty string if there are no notes.
+   */
+  String getPitchRange();
+
+  /**
+   * Provides the version of the model that the views are showing, which increases by one for
+   * every batch of edits applied.
+   *
+   * @return the version of the model.
+   */
+  long getModelVersion();
+
+  /**
+   * Provides the number of edits applied to the model since the MusicEditor started.
+   *
+   * @return the number of edits.
+   */
+  long getEditsApplied();
+
+  /**
+   * Provides the rate at which edits were applied over the last few seconds.
+   *
+   * @return the edits per second.
+   */
+  double getEditsPerSecond();
+
+  /**
+   * Provides the number of times the editor panel was painted.
+   *
+   * @return the number of repaints.
+   */
+  long getRepaintCount();
+
+  /**
+   * Provides how long the latest repaint of the editor panel took.
+   *
+   * @return the time taken, in milliseconds.
+   */
+  double getLastRepaintMillis();
+
+  /**
+   * Provides the time that half of the repaints were no slower than.
+   *
+   * @return the median repaint time, in milliseconds.
+   */
+  double getRepaintP50Millis();
+
+  /**
+   * Provides the time that 99 in 100 repaints were no slower than.
+   *
+   * @return the 99th percentile repaint time, in milliseconds.
+   */
+  double getRepaintP99Millis();
+
+  /**
+   * Provides the time taken by the slowest repaint.
+   *
+   * @return the slowest repaint time, in milliseconds.
+   */
+  double getRepaintMaxMillis();
+
+  /**
+   * Provides the number of times the MIDI view rebuilt its whole sequence.
+   *
+   * @return the number of rebuilds.
+   */
+  long getSequenceRebuildCount();
+
+  /**
+   * Provides how long the latest rebuild of the sequence took.
+   *
+   * @return the time taken, in milliseconds.
+   */
+  double getLastSequenceRebuildMillis();
+
+  /**
+   * Provides how long the rebuilds of the sequence took altogether.
+   *
+   * @return the total time taken, in milliseconds.
+   */
+  double getTotalSequenceRebuildMillis();
+
+  /**
+   * Provides how far the beat being played by the MIDI view is ahead of the beat shown by the
+   * GUI view. It is negative when the sound is behind the picture.
+   *
+   * @return the drift, in beats, or 0 if nothing is both played and shown.
+   */
+  int getClockDriftBeats();
+
+  /**
+   * Provides the drift between the sound and the picture, as above, at the tempo of the song.
+   *
+   * @return the drift, in milliseconds.
+   */
+  double getClockDriftMillis();
+
+  /**
+   * Forgets the repaint times and the rebuilds of the sequence recorded so far.
+   */
+  void reset();
+}
@@ -1,5 +1,6 @@
 package cs3500.music.view;
 
+import java.awt.BorderLayout;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Color;
@@ -7,19 +8,28 @@ import java.awt.BasicStroke;
 import java.awt.Font;
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.image.BufferedImage;
 
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.Timer;
 
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IModelListener;
 import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.ModelChange;
 import cs3500.music.model.Repeat;
+import cs3500.music.model.RestNote;
 import cs3500.music.model.SoundPair;
+import cs3500.music.util.EditorMetrics;
+import cs3500.music.util.MusicEvents;
 
 /**
  * Panel of the piano, and the notes displayed.
@@ -29,17 +39,32 @@ public class EditorPanel extends JPanel implements IEditorPanel {
   private IPianoPanel panel = new PianoPanel();
   private static final int BEAT_HEIGHT = 12;
   private static final int BEAT_WIDTH = 16;
+  // Widest canvas (in pixels) that is laid out as a single component before switching to the
+  // virtual viewport.
+  private static final int MAX_CANVAS_WIDTH = 16000;
+  private static final int VIEWPORT_WIDTH = 1600;
+  // Zoom level z draws BEAT_WIDTH / 2^z pixels per beat. Far enough out, the tiles are drawn
+  // from the density pyramid instead of note by note.
+  private static final int MAX_ZOOM = 10;
   private int top;
   private final int y1 = 20;
   private int curBeat;
   private JScrollPane pane;
+  private final boolean virtualViewport;
+  private JScrollBar beatBar;
+  private int beatOffset = 0;
+  private int zoom = 0;
+  private double pixelsPerBeat = BEAT_WIDTH;
+  private ScoreSnapshot snapshot;
+  private ScoreTileRenderer tiles;
+  private boolean fullyPainted = false;
+  private final IModelListener changeListener = this::patch;
 
   private int startX;
   private int startY;
   private int headOffset;
 
   private Timer scrollTimer;
-  private List<IMusicNote> compNotes;
   private List<SoundPair> soundPairs;
 
   private int windowHeight;
@@ -51,18 +76,54 @@ public class EditorPanel extends JPanel implements IEditorPanel {
 
   /**
    * Creates a new panel. Will place piece of music into a JScrollPane, to allow for scrolling.
+   * Pieces too long to lay out as a single component are shown in a virtual viewport instead.
    *
    * @param model is the model whose data will be represented as a music editor
    */
   public EditorPanel(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
+    this(model, (model.getTotalDuration() + 1) * BEAT_WIDTH > MAX_CANVAS_WIDTH);
+  }
+
+  /**
+   * Creates a new panel. In virtual viewport mode, the panel is a fixed-size canvas and the
+   * horizontal position is driven by a scrollbar measured in beats, rather than by a JScrollPane
+   * over a component as wide as the whole piece.
+   *
+   * @param model is the model whose data will be represented as a music editor
+   * @param virtualViewport true if the panel should render through a virtual viewport.
+   */
+  public EditorPanel(IReadOnlyModel<IMusicNote, IMusicPiece> model, boolean virtualViewport) {
     super();
-    setModel(model);
+    this.virtualViewport = virtualViewport;
     this.startX = 32;
     this.startY = 20;
     this.headOffset = this.startX + BEAT_WIDTH;
+    this.tiles = new ScoreTileRenderer(startY, BEAT_HEIGHT, getFont(), this::repaint);
+    if (virtualViewport) {
+      beatBar = new JScrollBar(JScrollBar.HORIZONTAL);
+      beatBar.addAdjustmentListener(e -> {
+        beatOffset = e.getValue();
+        repaint();
+      });
+      addComponentListener(new ComponentAdapter() {
+        @Override
+        public void componentResized(ComponentEvent e) {
+          resize();
+        }
+      });
+    }
+    setModel(model);
     this.top = headOffset;
     curBeat = 0;
-    pane = new JScrollPane(this);
+    if (virtualViewport) {
+      JPanel viewport = new JPanel(new BorderLayout());
+      viewport.add(this, BorderLayout.CENTER);
+      viewport.add(beatBar, BorderLayout.SOUTH);
+      pane = new JScrollPane(viewport, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
+              JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+    } else {
+      pane = new JScrollPane(this);
+    }
     initTimer();
   }
 
@@ -141,8 +202,53 @@ public class EditorPanel extends JPanel implements IEditorPanel {
    * Resizes the view based on changes to the composition.
    */
   private void resize() {
-    int totalRange = this.composition.totalRange();
+    int totalRange = this.soundPairs.size();
     this.windowHeight = (totalRange * BEAT_HEIGHT) + y1;
+    if (virtualViewport) {
+      int extent = visibleBeats();
+      int max = Math.max(this.composition.getTotalDuration() + 2, extent);
+      beatBar.setValues(Math.min(beatOffset, max - extent), extent, 0, max);
+      beatBar.setBlockIncrement(extent);
+    }
+  }
+
+  /**
+   * Computes the number of beats that fit in the virtual viewport.
+   *
+   * @return the number of whole beats visible at once.
+   */
+  private int visibleBeats() {
+    int width = getWidth() > 0 ? getWidth() : VIEWPORT_WIDTH;
+    return Math.max(1, (int) ((width - headOffset) / pixelsPerBeat));
+  }
+
+  /**
+   * Computes the first beat to render. Outside of the virtual viewport this is always 0.
+   *
+   * @return the first rendered beat.
+   */
+  private int firstRenderedBeat() {
+    return virtualViewport ? beatOffset : 0;
+  }
+
+  /**
+   * Computes the last beat to render. Outside of the virtual viewport this is the end of the piece.
+   *
+   * @return the last rendered beat.
+   */
+  private int lastRenderedBeat() {
+    int end = this.composition.getTotalDuration() + 1;
+    return virtualViewport ? Math.min(end, beatOffset + visibleBeats()) : end;
+  }
+
+  /**
+   * Computes the x coordinate on this panel at which the given beat is drawn.
+   *
+   * @param beat the beat to locate.
+   * @return the x coordinate of the beat.
+   */
+  private int beatToX(int beat) {
+    return headOffset + (int) Math.round((beat - firstRenderedBeat()) * pixelsPerBeat);
   }
 
   /**
@@ -159,49 +265,61 @@ public class EditorPanel extends JPanel implements IEditorPanel {
   }
 
   /**
-   * Renders the notes onto the Editor Panel.
+   * Draws the score tiles that intersect the area being painted. Tiles that are not ready yet are
+   * scheduled for rendering off the Event Dispatch Thread, and this panel is repainted once they
+   * are published; until then, a tile changed by an edit is drawn as it was before the edit.
    *
-   * @param g the Graphics object to paint onto.
+   * @param g     the Graphics object to paint onto.
+   * @param event the event recording this paint, which is told how many tiles were drawn.
    */
-  private void renderNotes(Graphics g) {
-    for (IMusicNote note : this.compNotes) {
-
-      for (int t = note.getStartLocation(); t <= note.getEndLocation(); t += 1) {
-
-        int xLoc = headOffset + (t * BEAT_WIDTH);
-        int yLoc = startY + (Math.abs((this.soundPairs.indexOf(note.getSoundPair())) -
-                this.soundPairs.size()) * BEAT_HEIGHT) - BEAT_HEIGHT;
-
-        paintNote(g, note, xLoc, yLoc, t);
+  private void renderTiles(Graphics g, MusicEvents.Paint event) {
+    int tileBeats = ScoreTileRenderer.tileBeats(pixelsPerBeat);
+    Rectangle clip = g.getClipBounds();
+    int first = firstPaintedBeat(clip);
+    int last = lastPaintedBeat(clip);
+
+    for (int index = first / tileBeats; index <= last / tileBeats; index += 1) {
+      BufferedImage tile = tiles.getTile(index);
+      if (tile == null) {
+        event.tilesMissing += 1;
+        tile = tiles.getStaleTile(index);
+      }
+      if (tile != null) {
+        g.drawImage(tile, beatToX(index * tileBeats), 0, null);
+        event.tilesDrawn += 1;
       }
     }
   }
 
   /**
-   * Renders the lines denoting the measures and the rows for each sound. Also renders the
-   * numerical headings for each measure.
+   * Computes the first beat within both the rendered beats and the given area being painted.
    *
-   * @param g the Graphics object to paint onto.
+   * @param clip the area being painted, or null if it is all of this panel.
+   * @return the first beat painted.
    */
-  private void renderMeasures(Graphics g) {
-    g.setColor(Color.BLACK);
-    int totalDuration = this.composition.getTotalDuration();
-
-    // Vertical lines
-    for (int i = 0; i <= totalDuration + 1; i += 1) {
-      if (i % this.composition.getPiece().getMeasureDuration() == 0) {
-        int xLoc = headOffset + (i * BEAT_WIDTH);
-        g.fillRect(xLoc, startY, 2, this.composition.totalRange() *
-                BEAT_HEIGHT);
-        g.drawString(String.valueOf(i), xLoc, startY);
-      }
-    }
+  private int firstPaintedBeat(Rectangle clip) {
+    return clip == null ? firstRenderedBeat() : Math.max(firstRenderedBeat(), xToBeat(clip.x));
+  }
 
-    // Horizontal lines + numerical markers
-    for (int i = 0; i <= this.soundPairs.size() * BEAT_HEIGHT; i += BEAT_HEIGHT) {
-      g.fillRect(headOffset, startY + i, (totalDuration + 1) *
-              BEAT_WIDTH, 2);
-    }
+  /**
+   * Computes the last beat within both the rendered beats and the given area being painted.
+   *
+   * @param clip the area being painted, or null if it is all of this panel.
+   * @return the last beat painted.
+   */
+  private int lastPaintedBeat(Rectangle clip) {
+    return clip == null ? lastRenderedBeat()
+            : Math.min(lastRenderedBeat(), xToBeat(clip.x + clip.width) + 1);
+  }
+
+  /**
+   * Computes the beat drawn at the given x coordinate on this panel.
+   *
+   * @param x the x coordinate.
+   * @return the beat at that coordinate, at least 0.
+   */
+  private int xToBeat(int x) {
+    return Math.max(0, firstRenderedBeat() + (int) Math.floor((x - headOffset) / pixelsPerBeat));
   }
 
   /**
@@ -214,33 +332,7 @@ public class EditorPanel extends JPanel implements IEditorPanel {
     g2d.setStroke(new BasicStroke(2));
     g.setColor(Color.RED);
 
-    g.fillRect(headOffset + (BEAT_WIDTH * (this.curBeat)), startY, 2,
-            this.composition.totalRange() * BEAT_HEIGHT);
-  }
-
-  /**
-   * Paints note at current beat.
-   *
-   * @param g      Graphics object to draw.
-   * @param note   is the String console representation of the note at the current beat.
-   * @param startX is the x coordinate to start drawing rectangle
-   * @param startY is the y coordinate to start drawing rectangle
-   */
-  private void paintNote(Graphics g, IMusicNote note, int startX, int startY, int beat) {
-    String singleNote = note.consoleString(beat);
-    if (singleNote.equalsIgnoreCase("  X  ")) {
-      g.setColor(Color.BLACK);
-      g.fillRect(startX, startY, BEAT_WIDTH, BEAT_HEIGHT);
-    } else if (singleNote.equalsIgnoreCase("  |  ")) {
-      g.setColor(Color.GREEN);
-      g.fillRect(startX, startY, BEAT_WIDTH, BEAT_HEIGHT);
-    } else {
-      g.setColor(Color.WHITE);
-      g.fillRect(startX - 30, startY, BEAT_WIDTH + 30, BEAT_HEIGHT);
-      g.setColor(Color.BLACK);
-      g.setFont(new Font("Serif", Font.BOLD, 10));
-      g.drawString(singleNote, startX - 15, startY + 10);
-    }
+    g.fillRect(beatToX(this.curBeat), startY, 2, this.soundPairs.size() * BEAT_HEIGHT);
   }
 
   /**
@@ -262,32 +354,45 @@ public class EditorPanel extends JPanel implements IEditorPanel {
   private void paintSingleRepeat(Graphics g, Repeat r) {
     int start = r.getStartBeat();
     g.setFont(new Font("Times New Roman", Font.BOLD, 10));
-    g.drawString("R", headOffset + BEAT_WIDTH * start, 10);
+    g.drawString("R", beatToX(start), 10);
     List<Integer> endings = r.getEndings();
     for (int i = 0; i < endings.size(); i++) {
       g.drawString(String.valueOf(i + 1),
-              headOffset + BEAT_WIDTH * endings.get(i), 10);
+              beatToX(endings.get(i)), 10);
     }
   }
 
 
   @Override
   public void paintComponent(Graphics g) {
+    MusicEvents.Paint event = new MusicEvents.Paint();
+    event.begin();
+    long start = System.nanoTime();
 
     super.paintComponent(g);
     Graphics2D g2d = (Graphics2D) g;
     paintNoteHeadings(g2d);
-    renderNotes(g2d);
-    renderMeasures(g2d);
+    renderTiles(g2d, event);
     renderRedLine(g2d);
     paintRepeats(g2d);
     redisplayWindowForBar();
+
+    EditorMetrics.getInstance().repainted(System.nanoTime() - start);
+    this.fullyPainted = event.tilesMissing == 0;
+    event.end();
+    if (event.shouldCommit()) {
+      Rectangle clip = g.getClipBounds();
+      event.notesDrawn = this.composition.getNotesPlaying(firstPaintedBeat(clip),
+              lastPaintedBeat(clip)).size();
+      event.commit();
+    }
   }
 
   @Override
   public Dimension getPreferredSize() {
     try {
-      int width = this.composition.getTotalDuration() * BEAT_WIDTH + startX;
+      int width = virtualViewport ? VIEWPORT_WIDTH :
+              (int) (this.composition.getTotalDuration() * pixelsPerBeat) + startX;
       int height = this.soundPairs.size() * BEAT_HEIGHT + startY;
 
       return new Dimension(width, height);
@@ -298,17 +403,24 @@ public class EditorPanel extends JPanel implements IEditorPanel {
 
   @Override
   public List<IMusicNote> playingAtCurBeat() {
-    List<IMusicNote> allNotesAtCurBeat = composition.getPieceByTime().get(curBeat);
-    if (allNotesAtCurBeat != null) {
-      List<IMusicNote> currentlyPlaying = new ArrayList<>();
-      for (IMusicNote noteAtBeat : allNotesAtCurBeat) {
-        if (!noteAtBeat.consoleString(curBeat).equalsIgnoreCase("     ")) {
-          currentlyPlaying.add(noteAtBeat);
-        }
-      }
-      return currentlyPlaying;
-    }
-    return new ArrayList<>();
+    return composition.getNotesPlaying(curBeat, curBeat);
+  }
+
+  @Override
+  public void dispose() {
+    this.scrollTimer.stop();
+    this.composition.removeListener(this.changeListener);
+    this.tiles.dispose();
+  }
+
+  /**
+   * Provides whether the latest paint of this panel drew every tile it covered, rather than
+   * leaving some to be drawn once they are rendered.
+   *
+   * @return whether the latest paint was complete.
+   */
+  public boolean isFullyPainted() {
+    return this.fullyPainted;
   }
 
   @Override
@@ -330,8 +442,17 @@ public class EditorPanel extends JPanel implements IEditorPanel {
 
   @Override
   public void redisplayWindowForBar() {
+    if (virtualViewport) {
+      int extent = visibleBeats();
+      if (curBeat >= beatOffset + extent) {
+        beatBar.setValue(curBeat);
+      } else if (curBeat < beatOffset) {
+        beatBar.setValue(Math.max(0, curBeat - extent));
+      }
+      return;
+    }
     Rectangle rectangle = this.getVisibleRect();
-    int xLocationOfBar = headOffset + getCurBeat() * BEAT_WIDTH;
+    int xLocationOfBar = beatToX(getCurBeat());
     if (xLocationOfBar > rectangle.getWidth() + rectangle.getX()) {
       int newWindowY = (int) rectangle.getY();
       rectangle.setLocation(xLocationOfBar, newWindowY);
@@ -353,7 +474,7 @@ public class EditorPanel extends JPanel implements IEditorPanel {
 
     Rectangle rect = this.getVisibleRect();
 
-    int x = headOffset + (BEAT_WIDTH * (this.curBeat));
+    int x = beatToX(this.curBeat);
     int y = startY;
     int width = (int) rect.getWidth();
     int height = (int) rect.getHeight();
@@ -382,21 +503,115 @@ public class EditorPanel extends JPanel implements IEditorPanel {
 
   @Override
   public void setModel(IReadOnlyModel<IMusicNote, IMusicPiece> newModel) {
+    if (this.composition != null) {
+      this.composition.removeListener(this.changeListener);
+    }
     this.composition = newModel;
+    this.composition.addListener(this.changeListener);
     curBeat += 1;
     top += BEAT_WIDTH;
 
-    this.compNotes = this.composition.getPiece().getNotes();
-    this.soundPairs = PrinterForConsole.soundPairs(this.composition.getPiece().lowestNote(),
-            this.composition.getPiece().highestNote());
-    repeats = newModel.getRepeats();
+    // The slice is a view over notes that are never changed, so it can be handed to the
+    // snapshot thread. Later changes are patched into the snapshot in the order they are made.
+    List<IMusicNote> notes = newModel.getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    int measureLength = newModel.getMeasureLength();
+    if (this.snapshot == null) {
+      // This panel cannot be laid out without its sound lanes, so the first snapshot is built
+      // straight away.
+      useSnapshot(new ScoreSnapshot(notes, measureLength));
+      this.tiles.setSnapshot(this.snapshot, pixelsPerBeat);
+    } else {
+      this.tiles.rebuild(() -> new ScoreSnapshot(notes, measureLength), this::showSnapshot);
+    }
+    updateRepeats();
+    this.resize();
+    repaint(this.getVisibleRect());
+  }
+
+  /**
+   * Uses the given snapshot of the composition, which the tiles are now rendered from, working
+   * out the sound lanes again if they changed.
+   *
+   * @param next the snapshot to use.
+   */
+  private void useSnapshot(ScoreSnapshot next) {
+    if (this.snapshot == null || next.lowestMidi() != this.snapshot.lowestMidi()
+            || next.laneCount() != this.snapshot.laneCount()) {
+      this.soundPairs = lanesOf(next);
+    }
+    this.snapshot = next;
+  }
+
+  /**
+   * Uses the given snapshot of the composition, once it has been built off the Event Dispatch
+   * Thread, and lays this panel out again to fit it.
+   *
+   * @param next the snapshot to show.
+   */
+  private void showSnapshot(ScoreSnapshot next) {
+    useSnapshot(next);
+    this.resize();
+    repaint();
+  }
+
+  /**
+   * Computes the sounds of the lanes of the given snapshot, from the lowest to the highest.
+   *
+   * @param snapshot the snapshot.
+   * @return the sound of each lane.
+   */
+  private static List<SoundPair> lanesOf(ScoreSnapshot snapshot) {
+    if (snapshot.laneCount() == 0) {
+      return new ArrayList<>();
+    }
+    int lowest = snapshot.lowestMidi();
+    int highest = lowest + snapshot.laneCount() - 1;
+    return PrinterForConsole.soundPairs(RestNote.of(SoundPair.of(lowest)),
+            RestNote.of(SoundPair.of(highest)));
+  }
+
+  /**
+   * Reads the repeats of the composition, and remembers where each of them starts.
+   */
+  private void updateRepeats() {
+    repeats = this.composition.getRepeats();
+    startRepeats.clear();
     for (Repeat r : repeats) {
       if (!startRepeats.contains(r.getStartBeat())) {
         startRepeats.add(r.getStartBeat());
       }
     }
-    this.resize();
-    repaint(this.getVisibleRect());
+  }
+
+  /**
+   * Updates only the parts of this panel that depend on the given changes to the composition.
+   * Repeats and tempo are patched in place, and note changes are patched into the snapshot off
+   * the Event Dispatch Thread, keeping every tile outside the beats they affect.
+   *
+   * @param changes the changes made to the composition.
+   */
+  private void patch(List<ModelChange> changes) {
+    boolean notesChanged = false;
+    for (ModelChange change : changes) {
+      switch (change.getKind()) {
+        case REPEAT_ADDED:
+        case REPEAT_REMOVED:
+          updateRepeats();
+          break;
+        case TEMPO_CHANGED:
+          int interval = this.composition.getTempo() / 1000 + 1;
+          this.scrollTimer.setDelay(interval);
+          this.scrollTimer.setInitialDelay(interval);
+          break;
+        default:
+          notesChanged = true;
+          break;
+      }
+    }
+    if (notesChanged) {
+      this.tiles.patch(changes, this::showSnapshot);
+    }
+    repaint();
   }
 
   @Override
@@ -413,5 +628,30 @@ public class EditorPanel extends JPanel implements IEditorPanel {
     this.scrollTimer.stop();
   }
 
+  @Override
+  public void zoomIn() {
+    setZoom(this.zoom - 1);
+  }
+
+  @Override
+  public void zoomOut() {
+    setZoom(this.zoom + 1);
+  }
+
+  /**
+   * Sets the zoom level of this panel, clamped to [0, MAX_ZOOM], and lays the panel out again.
+   *
+   * @param newZoom the zoom level to set.
+   */
+  private void setZoom(int newZoom) {
+    this.zoom = Math.max(0, Math.min(MAX_ZOOM, newZoom));
+    this.pixelsPerBeat = BEAT_WIDTH / (double) (1 << this.zoom);
+    this.tiles.setZoom(pixelsPerBeat);
+    this.resize();
+    revalidate();
+    redisplayWindowForBar();
+    repaint();
+  }
+
 
 }
\ No newline at end of file
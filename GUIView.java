@@ -65,6 +65,10 @@ public class GUIView extends JFrame implements IVisualView<IReadOnlyModel<IMusic
 
   @Override
   public void refresh(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
+    if (model == this.model) {
+      // The editor panel listens to this model, and has already patched itself.
+      return;
+    }
     this.model = model;
     int curBeat = composition.getCurBeat();
     composition.setModel(model);
@@ -196,4 +200,10 @@ public class GUIView extends JFrame implements IVisualView<IReadOnlyModel<IMusic
     setVisible(true);
   }
 
+  @Override
+  public void dispose() {
+    this.composition.dispose();
+    super.dispose();
+  }
+
 }
\ No newline at end of file
@@ -1,11 +1,14 @@
 package cs3500.music.controller;
 
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.util.HashMap;
 import java.util.Map;
 
 import javax.swing.JButton;
+import javax.swing.Timer;
 
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
@@ -13,8 +16,10 @@ import cs3500.music.model.IReadOnlyModel;
 import cs3500.music.model.MusicModel;
 import cs3500.music.model.MusicNote;
 import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.NoteEdit;
 import cs3500.music.model.PitchType;
-import cs3500.music.model.ReadOnlyModel;
+import cs3500.music.model.UndoableModel;
+import cs3500.music.util.EditorMetrics;
 import cs3500.music.util.MusicReader;
 import cs3500.music.view.BlackKey;
 import cs3500.music.view.GUIView;
@@ -27,12 +32,19 @@ import cs3500.music.view.WhiteKey;
  */
 public class GuiControllerImp implements
         IController<IMusicNote, MusicalOperations<IMusicNote, IMusicPiece>> {
+  private static final int FRAME_MILLIS = 16;
   private IVisualView<IReadOnlyModel<IMusicNote, IMusicPiece>> view;
   private MusicalOperations<IMusicNote, IMusicPiece> model;
+  private EditQueue edits;
+  private UndoableModel history;
   private boolean isPlaying;
   private PitchType prevPitch = PitchType.C;
   private int prevOctave = 0;
   private int noteStartBeat = 0;
+  // The note written by the key being held down, which each further click makes longer, and the
+  // number of the edit that wrote it.
+  private IMusicNote heldNote;
+  private long heldEdit;
 
   /**
    * Constructs a new GuiControllerImp object from the data in the given music file.
@@ -40,10 +52,25 @@ public class GuiControllerImp implements
    */
   public GuiControllerImp(Readable file) {
     model = MusicReader.parseFile(file, new MusicModel.ModelBuilder());
-    IReadOnlyModel<IMusicNote, IMusicPiece> model2 = new ReadOnlyModel(model);
-    view = new GUIView(model2);
+    history = new UndoableModel(model);
+    edits = new EditQueue(history);
+    edits.setRejectionHandler(this::reportRejected);
+    EditorMetrics.getInstance().watchModel(edits.getLatest(), edits::getVersion);
+    EditorMetrics.register();
+    view = new GUIView(edits.getLatest());
     isPlaying = false;
     setKeyListenersForView();
+    startFrameClock();
+  }
+
+  /**
+   * Starts the frame clock, which once per frame publishes the latest version of the model
+   * prepared by the edit queue. The views listen to the published model, and patch only what the
+   * new version changed.
+   */
+  private void startFrameClock() {
+    Timer frameTimer = new Timer(FRAME_MILLIS, e -> edits.publish());
+    frameTimer.start();
   }
 
   /**
@@ -69,6 +96,20 @@ public class GuiControllerImp implements
       }
     });
 
+    kp.put(KeyEvent.VK_Z, () -> {
+      heldNote = null;
+      edits.submit(m -> history.undo());
+    });
+
+    kp.put(KeyEvent.VK_Y, () -> {
+      heldNote = null;
+      edits.submit(m -> history.redo());
+    });
+
+    kp.put(KeyEvent.VK_EQUALS, () -> view.getEditorPanel().zoomIn());
+
+    kp.put(KeyEvent.VK_MINUS, () -> view.getEditorPanel().zoomOut());
+
     kr.put(KeyEvent.VK_HOME, () -> view.goToStart());
 
     kr.put(KeyEvent.VK_END, () -> view.goToEnd());
@@ -101,8 +142,60 @@ public class GuiControllerImp implements
   @Override
   public void addNote(IMusicNote note) {
     if (!isPlaying) {
-      model.writeNote(note);
-      view.refresh(new ReadOnlyModel(model));
+      edits.submit(m -> m.writeNote(note));
+    }
+  }
+
+  /**
+   * Queues the given note to be written into the model, unless the music is playing. If the key
+   * for the note is being held down, the note it wrote so far is swapped for the given one, or
+   * the given note is written afresh if that note is no longer in the model.
+   *
+   * @param note       the note made by the key.
+   * @param continuing whether the key was already held down.
+   */
+  private void holdNote(IMusicNote note, boolean continuing) {
+    if (!isPlaying) {
+      heldEdit = edits.submit(note.getSoundPair(), continuing && isHeldNoteWritten()
+              ? NoteEdit.replace(heldNote, note) : NoteEdit.write(note));
+      heldNote = note;
+    }
+  }
+
+  /**
+   * Tells whether the note written by the key being held down is still in the model, or is yet
+   * to be written.
+   *
+   * @return true if the held note can be swapped for a longer one.
+   */
+  private boolean isHeldNoteWritten() {
+    if (heldNote == null) {
+      return false;
+    }
+    if (!edits.isPublished(heldEdit)) {
+      return true;
+    }
+    int start = heldNote.getStartLocation();
+    for (IMusicNote written : edits.getLatest().getNotesBetween(start, start)) {
+      if (written.getId() == heldNote.getId()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reports an edit that the model rejected.
+   *
+   * @param e the reason the edit was rejected.
+   */
+  private void reportRejected(IllegalArgumentException e) {
+    // The rejected edit may have been the one writing the held note, so the next click starts
+    // a new note.
+    heldNote = null;
+    System.err.println("Could not apply an edit: " + e.getMessage());
+    if (!GraphicsEnvironment.isHeadless()) {
+      Toolkit.getDefaultToolkit().beep();
     }
   }
 
@@ -123,9 +216,10 @@ public class GuiControllerImp implements
 
   @Override
   public MusicalOperations<IMusicNote, IMusicPiece> getModel() {
-    IMusicPiece opus = this.model.getPiece();
+    IReadOnlyModel<IMusicNote, IMusicPiece> latest = this.edits.getLatest();
+    IMusicPiece opus = latest.getPiece();
     int measureDuration = (int) Math.ceil(opus.getMeasureDuration());
-    int tempo = this.model.getTempo();
+    int tempo = latest.getTempo();
 
     return new MusicModel(opus, measureDuration, tempo);
   }
@@ -144,7 +238,8 @@ public class GuiControllerImp implements
     }
     int duration = 1;
     int startBeat = view.getTick();
-    if (prevOctave == octave && prevPitch == pitch) {
+    boolean continuing = heldNote != null && prevOctave == octave && prevPitch == pitch;
+    if (continuing) {
       noteStartBeat += 1;
       duration += noteStartBeat;
       startBeat = view.getTick() - noteStartBeat;
@@ -154,7 +249,9 @@ public class GuiControllerImp implements
     prevPitch = pitch;
     prevOctave = octave;
     IMusicNote note = new MusicNote(pitch, duration, octave, startBeat);
-    addNote(note);
+    // Holding down a key re-sends a longer version of the same note, which replaces the shorter
+    // one rather than being written as well.
+    holdNote(note, continuing);
   }
 
   @Override
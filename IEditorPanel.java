@@ -69,4 +69,21 @@ public interface IEditorPanel {
    * Stops scrolling, while maintaining the current beat position.
    */
   void haltScroll();
+
+  /**
+   * Zooms in by one level, showing fewer beats with more detail.
+   */
+  void zoomIn();
+
+  /**
+   * Zooms out by one level, showing more beats. Far enough out, notes are drawn as a density
+   * overview rather than individually.
+   */
+  void zoomOut();
+
+  /**
+   * Stops the scrolling of this panel and the threads that render its score. The panel draws no
+   * more notes after this.
+   */
+  void dispose();
 }
@@ -0,0 +1,17 @@
+package cs3500.music.model;
+
+import java.util.List;
+
+/**
+ * Interface for objects that want to be told when a musical composition changes.
+ */
+public interface IModelListener {
+
+  /**
+   * Called after the composition has changed. Changes made together, such as a batch of edits,
+   * are delivered in a single call, in the order they were made.
+   *
+   * @param changes the changes made to the composition.
+   */
+  void modelChanged(List<ModelChange> changes);
+}
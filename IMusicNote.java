@@ -2,10 +2,19 @@ package cs3500.music.model;
 
 /**
  * Interface for music note objects. Provides methods for directly operating on individual music
- * notes.
+ * notes. A note never changes once it is made, so notes can be shared between copies of a piece
+ * and between threads; moving a note makes a new one.
  */
 public interface IMusicNote {
 
+  /**
+   * Provides the stable identity of this note. Two distinct notes never share an ID, even if they
+   * are equal, so the ID tells apart notes that differ only in instrument or volume.
+   *
+   * @return the ID of this IMusicNote
+   */
+  long getId();
+
   /**
    * Provides a view of the PitchType of the music note.
    *
@@ -68,18 +77,13 @@ public interface IMusicNote {
   int getVolume();
 
   /**
-   * Sets the the volume to the given volume.
-   * @param newVolume the value to set the volume to.
-   * @throws IllegalArgumentException if the volume value is not within range [0, 127].
-   */
-  void setVolume(int newVolume) throws IllegalArgumentException;
-
-  /**
-   * Updates the start and end locations of this MusicNote by the given amount.
+   * Provides a copy of this note that starts and ends the given number of beats later, leaving
+   * this note unchanged.
    *
-   * @param delta amount by which to change the locations.
+   * @param beats the number of beats by which to move the copy.
+   * @return the moved copy.
    */
-  void changeLocations(double delta);
+  IMusicNote shiftedBy(int beats);
 
   /**
    * Compares this MusicNote with the given MusicNote on the basis of location.
@@ -36,6 +36,30 @@ public interface IMusicPiece {
    */
   List<IMusicNote> getNotesAfter(int start);
 
+  /**
+   * Provides a read-only view of the notes associated with this IMusicPiece that start within
+   * the given range of beats, in order of starting beat. The view is not a copy: it is found by
+   * binary search over an index of the notes sorted by starting beat, and keeps showing the notes
+   * as they were when it was made, even if this piece is edited afterwards.
+   *
+   * @param fromBeat the first starting beat to include.
+   * @param toBeat   the last starting beat to include.
+   * @return the notes that start within [fromBeat, toBeat].
+   */
+  List<IMusicNote> slice(int fromBeat, int toBeat);
+
+  /**
+   * Provides the notes associated with this IMusicPiece that are playing on any beat within the
+   * given range, in order of starting beat. Only the notes starting within the length of the
+   * longest note before the range are looked at, so the cost depends on the range rather than on
+   * the length of the piece.
+   *
+   * @param fromBeat the first beat of the range.
+   * @param toBeat   the last beat of the range.
+   * @return the notes that play on some beat within [fromBeat, toBeat].
+   */
+  List<IMusicNote> playing(int fromBeat, int toBeat);
+
   /** Provides a view of the notes associated with this IMusicPiece mapped out to each beat in
    * the piece.
    * @return the notes played at each beat in the piece.
@@ -85,22 +109,36 @@ public interface IMusicPiece {
   void replace(IMusicNote currentNote, IMusicNote newNote) throws IllegalArgumentException;
 
   /**
-   * Joins the given Opus with this Opus such that the two will play simultaneously.
+   * Applies the given edits to this piece, in order, as a single transaction. Either every edit
+   * is applied, or none of them are.
+   *
+   * @param edits the edits to apply.
+   * @throws IllegalArgumentException if an edit removes or replaces a note that is not contained
+   *                                  in this piece at the point in the batch where it applies.
+   */
+  void applyEdits(List<NoteEdit<IMusicNote>> edits) throws IllegalArgumentException;
+
+  /**
+   * Joins the given Opus with this Opus such that the two will play simultaneously. The given
+   * Opus is not changed; copies of its notes, each with an ID of its own, are added instead.
    *
    * @param other the Opus to join with this one.
+   * @return the notes added to this Opus.
    * @throws IllegalArgumentException if the given Opus has a different time signature than this
    *                                  one.
    */
-  void joinPieceIntegrated(IMusicPiece other) throws IllegalArgumentException;
+  List<IMusicNote> joinPieceIntegrated(IMusicPiece other) throws IllegalArgumentException;
 
   /**
-   * Joins the given Opus with this Opus such that the given one plays after this one.
+   * Joins the given Opus with this Opus such that the given one plays after this one. The given
+   * Opus is not changed; moved copies of its notes are added instead.
    *
    * @param other the Opus to join with this one.
+   * @return the notes added to this Opus.
    * @throws IllegalArgumentException if the given Opus has a different time signature than this
    *                                  one.
    */
-  void joinPiecePlayAfter(IMusicPiece other) throws IllegalArgumentException;
+  List<IMusicNote> joinPiecePlayAfter(IMusicPiece other) throws IllegalArgumentException;
 
   /**
    * Computes the note with the lowest sound in this piece.
@@ -24,6 +24,24 @@ public interface IReadOnlyModel<T, U> {
    */
   U getPieceAfter(int start);
 
+  /**
+   * Provides a read-only view of the notes in the musical composition that start within the given
+   * range of beats, in order of starting beat, without copying the piece.
+   * @param fromBeat the first starting beat to include.
+   * @param toBeat the last starting beat to include.
+   * @return the notes that start within [fromBeat, toBeat].
+   */
+  List<T> getNotesBetween(int fromBeat, int toBeat);
+
+  /**
+   * Provides the notes in the musical composition that are playing on any beat within the given
+   * range, in order of starting beat, looking only at the notes near that range.
+   * @param fromBeat the first beat of the range.
+   * @param toBeat the last beat of the range.
+   * @return the notes that play on some beat within [fromBeat, toBeat].
+   */
+  List<T> getNotesPlaying(int fromBeat, int toBeat);
+
   /**
    * Provides a view of the piece associated with the musical composition, with its values
    * organized by time.
@@ -63,6 +81,12 @@ public interface IReadOnlyModel<T, U> {
    */
   int getTempo();
 
+  /**
+   * Provides a view of the length of each measure in the musical composition.
+   * @return the measure length in the musical composition.
+   */
+  int getMeasureLength();
+
   /**
    * Computes the total duration of the composition.
    * @return the total duration of the composition.
@@ -81,4 +105,16 @@ public interface IReadOnlyModel<T, U> {
    */
   List<Repeat> getRepeats();
 
+  /**
+   * Registers the given listener to be told about every change to the musical composition.
+   * @param listener the listener to add.
+   */
+  void addListener(IModelListener listener);
+
+  /**
+   * Stops telling the given listener about changes to the musical composition.
+   * @param listener the listener to remove.
+   */
+  void removeListener(IModelListener listener);
+
 }
@@ -0,0 +1,364 @@
+package cs3500.music.util;
+
+import java.awt.EventQueue;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Sequencer;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+import javax.swing.JButton;
+import javax.swing.Timer;
+
+import cs3500.music.controller.CompositeControllerImp;
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.ModelChange;
+import cs3500.music.model.MusicNote;
+import cs3500.music.view.CompositeView;
+import cs3500.music.view.Key;
+import cs3500.music.view.MidiViewer;
+import cs3500.music.view.OffscreenView;
+
+/**
+ * Measures how long the MusicEditor takes from a click on a key of the piano to the note it adds
+ * being ready to sound and being painted, under increasing rates of clicks. The composite
+ * controller is driven as it is in the application, through its edit queue, frame clock and
+ * listeners, but with no display or sound device: the GUI is an OffscreenView, and the sequencer
+ * is connected to a Receiver that drops the messages it is sent.
+ *
+ * <p>Synthetic mouse releases are posted to the Event Dispatch Thread at a fixed rate, on keys
+ * picked at random, with a key press moving the red line after every few of them so the notes
+ * spread over the song. A click is timed from when it is posted until:</p>
+ *   <ul>
+ *     <li>sounded: the note it adds is in the sequence loaded into the sequencer, once the edit
+ *     has been published to the views; and</li>
+ *     <li>painted: the first frame after that which draws every tile it covers.</li>
+ *   </ul>
+ *
+ * <p>Frames are painted once every FRAME_MILLIS, as a screen would, while any note is still to be
+ * painted. A click whose note is not published within TIMEOUT_NANOS, such as one writing over a
+ * note that was already there, is counted as lost.</p>
+ */
+public class LatencyHarness {
+  private static final int FRAME_MILLIS = 16;
+  private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+  // A key press moving the red line is sent after this many clicks.
+  private static final int CLICKS_PER_KEY = 4;
+  private static final long SEED = 3500;
+
+  private final OffscreenView gui;
+  private final Sequencer sequencer;
+  private final List<JButton> keys;
+  private final Random random = new Random(SEED);
+
+  // Used only on the Event Dispatch Thread: the clicks not yet sounded or painted, by the note
+  // they add, with when each was posted.
+  private final Map<Long, Long> unsounded = new HashMap<>();
+  private final Map<Long, Long> unpainted = new HashMap<>();
+  private LatencyHistogram sounded = new LatencyHistogram();
+  private LatencyHistogram painted = new LatencyHistogram();
+  private int clicks = 0;
+  private int lost = 0;
+  private JButton lastKey;
+
+  /**
+   * Constructs a new LatencyHarness that edits the given song.
+   *
+   * @param song the song to edit.
+   * @throws MidiUnavailableException if there is no sequencer to stand in for the real one.
+   */
+  public LatencyHarness(Readable song) throws MidiUnavailableException {
+    this.sequencer = MidiSystem.getSequencer(false);
+    this.sequencer.getTransmitter().setReceiver(new Receiver() {
+      @Override
+      public void send(MidiMessage message, long timeStamp) {
+        // Nothing is played, only sequenced.
+      }
+
+      @Override
+      public void close() {
+        // Holds nothing open.
+      }
+    });
+
+    OffscreenView[] made = new OffscreenView[1];
+    IReadOnlyModel<?, ?>[] shown = new IReadOnlyModel<?, ?>[1];
+    new CompositeControllerImp(song, null, model -> {
+      made[0] = new OffscreenView(model, 1600, 800);
+      shown[0] = model;
+      return new CompositeView(model, new MidiViewer(model, this.sequencer), made[0]);
+    });
+    this.gui = made[0];
+    this.keys = new ArrayList<>();
+    for (JButton key : this.gui.getKeys()) {
+      // The piano has keys beyond the range of sounds a note can have, which are never clicked.
+      try {
+        new MusicNote(((Key) key).getPitch(), 1, ((Key) key).getOctave(), 0);
+        this.keys.add(key);
+      } catch (IllegalArgumentException e) {
+        // Out of range.
+      }
+    }
+    // Listens after the views, so the sequence has already been patched when this is told.
+    shown[0].addListener(this::published);
+    new Timer(FRAME_MILLIS, e -> frame()).start();
+  }
+
+  /**
+   * Runs the harness from the command line. The options are:
+   *   <ul>
+   *     <li>--song: the song file to edit, rather than one made up by the SongGenerator</li>
+   *     <li>--rates: the numbers of clicks per second to run at, such as 10,50,100,200</li>
+   *     <li>--seconds: how long to run at each rate</li>
+   *   </ul>
+   *
+   * @param args the command line arguments.
+   * @throws Exception if the harness cannot be set up.
+   */
+  public static void main(String[] args) throws Exception {
+    if (System.getProperty("java.awt.headless") == null) {
+      System.setProperty("java.awt.headless", "true");
+    }
+    String songFile = null;
+    int[] rates = {10, 50, 100, 200, 400};
+    int seconds = 5;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--song":
+          songFile = args[i + 1];
+          break;
+        case "--rates":
+          rates = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+          break;
+        case "--seconds":
+          seconds = Integer.parseInt(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    Readable song = songFile == null ? generatedSong() : new FileReader(songFile);
+    LatencyHarness[] harness = new LatencyHarness[1];
+    EventQueue.invokeAndWait(() -> {
+      try {
+        harness[0] = new LatencyHarness(song);
+      } catch (MidiUnavailableException e) {
+        throw new IllegalStateException(e.getMessage());
+      }
+    });
+
+    System.out.println(String.format("%-7s %7s %6s %10s %10s %10s %10s %10s %10s", "clicks/s",
+            "clicks", "lost", "sound p50", "p99", "p999", "paint p50", "p99", "p999"));
+    for (int rate : rates) {
+      System.out.println(harness[0].run(rate, seconds));
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Makes up the song to edit when none is given.
+   *
+   * @return the song, in the file format read by the MusicReader.
+   * @throws IOException if the song cannot be written out.
+   */
+  private static Readable generatedSong() throws IOException {
+    StringWriter file = new StringWriter();
+    new SongGenerator.Builder().seed(SEED).beats(2000).polyphony(4).build().writeTo(file);
+    return new StringReader(file.toString());
+  }
+
+  /**
+   * Posts clicks at the given rate for the given time, waits for the last of them to be sounded
+   * and painted, and reports how long they took.
+   *
+   * @param rate    the clicks per second.
+   * @param seconds how long to post clicks for.
+   * @return the line of results, in milliseconds.
+   * @throws Exception if the Event Dispatch Thread cannot be waited for.
+   */
+  private String run(int rate, int seconds) throws Exception {
+    EventQueue.invokeAndWait(() -> {
+      this.sounded = new LatencyHistogram();
+      this.painted = new LatencyHistogram();
+      this.clicks = 0;
+      this.lost = 0;
+    });
+
+    long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    long start = System.nanoTime();
+    long end = start + TimeUnit.SECONDS.toNanos(seconds);
+    for (long due = start; due < end; due += interval) {
+      LockSupport.parkNanos(due - System.nanoTime());
+      long posted = System.nanoTime();
+      EventQueue.invokeLater(() -> click(posted));
+    }
+
+    long deadline = System.nanoTime() + TIMEOUT_NANOS + TimeUnit.MILLISECONDS.toNanos(100);
+    boolean[] drained = {false};
+    while (!drained[0] && System.nanoTime() < deadline) {
+      Thread.sleep(FRAME_MILLIS);
+      EventQueue.invokeAndWait(() -> drained[0] = unsounded.isEmpty() && unpainted.isEmpty());
+    }
+
+    String[] line = new String[1];
+    EventQueue.invokeAndWait(() -> line[0] = String.format(
+            "%-7d %7d %6d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f", rate, clicks,
+            lost + unsounded.size(), millis(sounded, 0.5), millis(sounded, 0.99),
+            millis(sounded, 0.999), millis(painted, 0.5), millis(painted, 0.99),
+            millis(painted, 0.999)));
+    return line[0];
+  }
+
+  /**
+   * Clicks a key of the piano, or after every few clicks moves the red line, as the user would.
+   * A key is never clicked twice in a row, since the controller lengthens the note of a held key
+   * rather than adding a new one.
+   *
+   * @param posted when the click was posted, in nanoseconds.
+   */
+  private void click(long posted) {
+    this.clicks += 1;
+    if (this.clicks % CLICKS_PER_KEY == 0) {
+      int code = this.random.nextBoolean() ? KeyEvent.VK_RIGHT : KeyEvent.VK_LEFT;
+      for (int id : new int[] {KeyEvent.KEY_PRESSED, KeyEvent.KEY_RELEASED}) {
+        this.gui.type(new KeyEvent(this.keys.get(0), id, System.currentTimeMillis(), 0, code,
+                KeyEvent.CHAR_UNDEFINED));
+      }
+    }
+
+    JButton key;
+    do {
+      key = this.keys.get(this.random.nextInt(this.keys.size()));
+    } while (key == this.lastKey);
+    this.lastKey = key;
+
+    IMusicNote note = new MusicNote(((Key) key).getPitch(), 1, ((Key) key).getOctave(),
+            this.gui.getTick());
+    long id = noteId(note);
+    this.unsounded.putIfAbsent(id, posted);
+    key.dispatchEvent(new MouseEvent(key, MouseEvent.MOUSE_RELEASED,
+            System.currentTimeMillis(), 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+  }
+
+  /**
+   * Times the clicks whose notes were just published, once the sequence holds them.
+   *
+   * @param changes the changes published.
+   */
+  private void published(List<ModelChange> changes) {
+    long now = System.nanoTime();
+    for (ModelChange change : changes) {
+      if (change.getKind() != ModelChange.Kind.NOTE_ADDED) {
+        continue;
+      }
+      long id = noteId(change.getNote());
+      Long posted = this.unsounded.get(id);
+      if (posted != null && isSequenced(change.getNote())) {
+        this.unsounded.remove(id);
+        this.sounded.record(now - posted);
+        this.unpainted.put(id, posted);
+      }
+    }
+  }
+
+  /**
+   * Paints a frame if any note is still to be painted, and gives up on clicks that took too long.
+   */
+  private void frame() {
+    long now = System.nanoTime();
+    if (!this.unpainted.isEmpty() && this.gui.paint()) {
+      for (long posted : this.unpainted.values()) {
+        this.painted.record(now - posted);
+      }
+      this.unpainted.clear();
+    }
+
+    Iterator<Long> waiting = this.unsounded.values().iterator();
+    while (waiting.hasNext()) {
+      if (now - waiting.next() > TIMEOUT_NANOS) {
+        waiting.remove();
+        this.lost += 1;
+      }
+    }
+  }
+
+  /**
+   * Checks whether the sequence loaded into the sequencer starts the given note. A track keeps
+   * its events in order of tick, so only the events on the note's first tick are looked at.
+   *
+   * @param note the note.
+   * @return whether the note is sequenced.
+   */
+  private boolean isSequenced(IMusicNote note) {
+    Sequence sequence = this.sequencer.getSequence();
+    if (sequence == null) {
+      return false;
+    }
+    long tick = note.getStartLocation();
+    for (Track track : sequence.getTracks()) {
+      int lo = 0;
+      int hi = track.size();
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (track.get(mid).getTick() < tick) {
+          lo = mid + 1;
+        } else {
+          hi = mid;
+        }
+      }
+      for (int i = lo; i < track.size() && track.get(i).getTick() == tick; i += 1) {
+        MidiEvent event = track.get(i);
+        if (event.getMessage() instanceof ShortMessage) {
+          ShortMessage message = (ShortMessage) event.getMessage();
+          if (message.getCommand() == ShortMessage.NOTE_ON
+                  && message.getData1() == note.midiNumber()) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Identifies a note added by a click by its starting beat and sound.
+   *
+   * @param note the note.
+   * @return the identifier.
+   */
+  private static long noteId(IMusicNote note) {
+    return ((long) note.getStartLocation() << 8) | note.midiNumber();
+  }
+
+  /**
+   * Reads a percentile of the given histogram in milliseconds.
+   *
+   * @param histogram the histogram.
+   * @param fraction  the fraction of durations, such as 0.99 for the 99th percentile.
+   * @return the duration, in milliseconds.
+   */
+  private static double millis(LatencyHistogram histogram, double fraction) {
+    return histogram.percentile(fraction) / 1e6;
+  }
+}
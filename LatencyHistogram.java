@@ -0,0 +1,133 @@
+package cs3500.music.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Represents a histogram of durations, in nanoseconds, that any number of threads can record into
+ * without locking. Durations are counted in buckets whose width is an eighth of a power of two, so
+ * every percentile read back is within an eighth of the true one, whatever the range of durations.
+ *
+ * <p>Recording a duration only increments one bucket; the work of finding percentiles is left to
+ * whoever reads them, which is usually far less often.</p>
+ */
+public class LatencyHistogram {
+  // Durations below this are counted exactly, each in a bucket of its own.
+  private static final int EXACT = 8;
+  // The bits below the leading one of a duration that pick its bucket within its power of two.
+  private static final int SUB_BITS = 3;
+  private static final int BUCKETS = (Long.SIZE - SUB_BITS) * EXACT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records one duration.
+   *
+   * @param nanos the duration, in nanoseconds; negative durations are counted as none.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    this.counts.incrementAndGet(bucket(value));
+    long seen = this.max.get();
+    while (value > seen && !this.max.compareAndSet(seen, value)) {
+      seen = this.max.get();
+    }
+  }
+
+  /**
+   * Provides the number of durations recorded.
+   *
+   * @return the number of durations.
+   */
+  public long getCount() {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i += 1) {
+      total += this.counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Provides the longest duration recorded.
+   *
+   * @return the longest duration, in nanoseconds, or 0 if there are none.
+   */
+  public long getMax() {
+    return this.max.get();
+  }
+
+  /**
+   * Provides the duration that the given fraction of the recorded durations are no longer than,
+   * rounded up to the end of its bucket.
+   *
+   * @param fraction the fraction of durations, such as 0.99 for the 99th percentile.
+   * @return the duration, in nanoseconds, or 0 if there are none.
+   * @throws IllegalArgumentException if the fraction is not between 0 and 1.
+   */
+  public long percentile(double fraction) throws IllegalArgumentException {
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("The fraction must be between 0 and 1.");
+    }
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i += 1) {
+      snapshot[i] = this.counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long wanted = Math.max(1, (long) Math.ceil(fraction * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i += 1) {
+      seen += snapshot[i];
+      if (seen >= wanted) {
+        return Math.min(upperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forgets every duration recorded so far.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i += 1) {
+      this.counts.set(i, 0);
+    }
+    this.max.set(0);
+  }
+
+  /**
+   * Computes the bucket the given duration is counted in.
+   *
+   * @param value the duration, which is not negative.
+   * @return the index of its bucket.
+   */
+  private static int bucket(long value) {
+    if (value < EXACT) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BITS;
+    // The top bits of the value, from EXACT up to twice it, pick the bucket within its power.
+    return shift * EXACT + (int) (value >>> shift);
+  }
+
+  /**
+   * Computes the longest duration counted in the given bucket.
+   *
+   * @param bucket the index of the bucket.
+   * @return the longest duration in it.
+   */
+  private static long upperBound(int bucket) {
+    if (bucket < 2 * EXACT) {
+      return bucket;
+    }
+    int shift = bucket / EXACT - 1;
+    long top = bucket % EXACT + EXACT;
+    return ((top + 1) << shift) - 1;
+  }
+}
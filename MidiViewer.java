@@ -2,8 +2,9 @@ package cs3500.music.view;
 
 import java.awt.event.KeyListener;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.sound.midi.InvalidMidiDataException;
 import javax.sound.midi.MidiEvent;
@@ -19,23 +20,33 @@ import javax.swing.SwingUtilities;
 
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IModelListener;
 import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.ModelChange;
 import cs3500.music.model.MusicModel;
 import cs3500.music.model.MusicalOperations;
-import cs3500.music.model.NoteLocationComparator;
+import cs3500.music.model.NoteLocationSorter;
 import cs3500.music.model.ReadOnlyModel;
 import cs3500.music.model.Repeat;
+import cs3500.music.util.EditorMetrics;
+import cs3500.music.util.MusicEvents;
 
 /**
  * Represents a MIDI that audially plays a music piece. Implements the functionality described in
  * the IAudioView interface.
  */
-public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMusicNote,
-        IMusicPiece>> {
+public class MidiViewer implements IAudioView<IReadOnlyModel<IMusicNote, IMusicPiece>> {
   //Sequencer used for playing a queue of notes (i.e. a pre-defined song).
   private final Sequencer sequencer;
+  // The window that takes key presses while this view is run on its own. It is only made once the
+  // view is run, so the view can be used where there is no display.
+  private JFrame window;
+  private final List<KeyListener> keyListeners = new ArrayList<>();
 
   private IReadOnlyModel<IMusicNote, IMusicPiece> model;
+  private final IModelListener changeListener = this::patch;
+  // The events that start and stop each note on the loaded track, by note ID.
+  private Map<Long, MidiEvent[]> eventsById = new HashMap<>();
 
   /**
    * Constructs a new MidiViewer object that can play the song represented in the given input file.
@@ -47,8 +58,6 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
    */
   public MidiViewer(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel, Sequencer
           inputSequencer) throws MidiUnavailableException {
-    super();
-
     this.sequencer = inputSequencer;
 
     this.sequencer.open();
@@ -56,28 +65,38 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
     refresh(inputModel);
 
     setSequencerTempo(this.model.getTempo());
-
-    setVisible(false);
-
-    requestKeyFocus();
   }
 
 
   /**
-   * requests focus for swing, on to the panel where the red line exists. So, the key event can
-   * register.
+   * requests focus for swing, on to the window of this view. So, the key event can register.
    */
   private void requestKeyFocus() {
-    SwingUtilities.invokeLater(MidiViewer.this::requestFocus);
+    SwingUtilities.invokeLater(this.window::requestFocus);
   }
 
   @Override
   public void refresh(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
+    if (model == this.model) {
+      // Already listening to this model, so the sequence is up to date.
+      return;
+    }
+    if (this.model != null) {
+      this.model.removeListener(this.changeListener);
+    }
+    model.addListener(this.changeListener);
+    this.model = model;
+    reload();
+  }
+
+  /**
+   * Loads the whole piece into a new sequence, keeping the current tick.
+   */
+  private void reload() {
     // Retrieves the current tick before refreshing.
     int currTick = getTick();
 
     // Refreshes
-    this.model = model;
     try {
       loadSequence(this.model.getPiece().getNotes());
     } catch (InvalidMidiDataException e) {
@@ -87,6 +106,84 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
     setTick(currTick);
   }
 
+  /**
+   * Updates the sequence after the given changes to the model. The events of each note added,
+   * removed or swapped are added to or taken off the track that is already loaded, and tempo
+   * changes are passed to the sequencer. The whole sequence is only reloaded if there is none
+   * yet, or a removed note was never put on the track.
+   *
+   * @param changes the changes made to the model.
+   */
+  private void patch(List<ModelChange> changes) {
+    if (this.sequencer.getSequence() == null) {
+      reload();
+      return;
+    }
+    Track track = this.sequencer.getSequence().getTracks()[0];
+    try {
+      for (ModelChange change : changes) {
+        boolean patched = true;
+        switch (change.getKind()) {
+          case NOTE_ADDED:
+            addNote(track, change.getNote());
+            break;
+          case NOTE_REMOVED:
+            patched = removeNote(track, change.getNote());
+            break;
+          case NOTE_REPLACED:
+            patched = removeNote(track, change.getNote());
+            addNote(track, change.getReplacement());
+            break;
+          case PIECE_COMBINED:
+            for (IMusicNote note : change.getJoinedNotes()) {
+              addNote(track, note);
+            }
+            break;
+          case TEMPO_CHANGED:
+            setSequencerTempo(this.model.getTempo());
+            break;
+          default:
+            break;
+        }
+        if (!patched) {
+          reload();
+          return;
+        }
+      }
+    } catch (InvalidMidiDataException e) {
+      reload();
+    }
+  }
+
+  /**
+   * Adds the events of the given note to the given track.
+   *
+   * @param track the loaded track.
+   * @param note  the note to add.
+   * @throws InvalidMidiDataException if the note cannot be represented as MIDI messages.
+   */
+  private void addNote(Track track, IMusicNote note) throws InvalidMidiDataException {
+    this.eventsById.put(note.getId(), addToTrack(track, note));
+  }
+
+  /**
+   * Takes the events of the given note off the given track.
+   *
+   * @param track the loaded track.
+   * @param note  the note to remove.
+   * @return false if the note's events are not on the track.
+   */
+  private boolean removeNote(Track track, IMusicNote note) {
+    MidiEvent[] events = this.eventsById.remove(note.getId());
+    if (events == null) {
+      return false;
+    }
+    for (MidiEvent event : events) {
+      track.remove(event);
+    }
+    return true;
+  }
+
   @Override
   public Sequencer getSequencer() {
     // this.sequencer is final, cannot be changed.
@@ -115,8 +212,47 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
 
   @Override
   public void loadSequence(List<IMusicNote> notes) throws InvalidMidiDataException {
+    MusicEvents.SequenceLoad event = new MusicEvents.SequenceLoad();
+    event.begin();
+    long start = System.nanoTime();
+    Map<Long, MidiEvent[]> events = new HashMap<>();
+    Sequence sequence = buildSequence(notes, events);
+    // Link the sequence to the sequencer
+    this.sequencer.setSequence(sequence);
+    this.eventsById = events;
+    EditorMetrics.getInstance().sequenceRebuilt(System.nanoTime() - start);
+    event.end();
+    if (event.shouldCommit()) {
+      event.notes = notes.size();
+      event.events = sequence.getTracks()[0].size();
+      event.commit();
+    }
+  }
+
+  /**
+   * Computes a sequence of one track that plays the given notes, one tick per beat.
+   *
+   * @param notes the notes to play, which are sorted in order of time.
+   * @return the sequence.
+   * @throws InvalidMidiDataException if a note cannot be represented as MIDI messages.
+   */
+  public static Sequence buildSequence(List<IMusicNote> notes) throws InvalidMidiDataException {
+    return buildSequence(notes, new HashMap<>());
+  }
+
+  /**
+   * Computes a sequence of one track that plays the given notes, one tick per beat, recording the
+   * events that start and stop each note.
+   *
+   * @param notes  the notes to play, which are sorted in order of time.
+   * @param events where to put the events of each note, by note ID.
+   * @return the sequence.
+   * @throws InvalidMidiDataException if a note cannot be represented as MIDI messages.
+   */
+  private static Sequence buildSequence(List<IMusicNote> notes, Map<Long, MidiEvent[]> events)
+          throws InvalidMidiDataException {
     // Sorts the notes in order of time.
-    Collections.sort(notes, new NoteLocationComparator());
+    NoteLocationSorter.sort(notes);
 
     // Creates a new Sequence, gives it an empty initial track
     Sequence sequence = new Sequence(Sequence.PPQ, 1);
@@ -124,20 +260,34 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
 
     // Loads notes to the track
     for (IMusicNote note : notes) {
-      int vol = note.getVolume();
-      int midiNum = note.midiNumber();
-
-      int outputChannel = 10; // Standard piano sound
-
-      // Adds the note to the track
-      MidiMessage onMsg = new ShortMessage(ShortMessage.NOTE_ON, outputChannel, midiNum, vol);
-      MidiMessage offMsg = new ShortMessage(ShortMessage.NOTE_OFF, outputChannel, midiNum, vol);
-      mainTrack.add(new MidiEvent(onMsg, note.getStartLocation()));
-      mainTrack.add(new MidiEvent(offMsg, note.getEndLocation())); //Remember to remove +1
+      events.put(note.getId(), addToTrack(mainTrack, note));
     }
+    return sequence;
+  }
 
-    // Link the sequence to the sequencer
-    this.sequencer.setSequence(sequence);
+  /**
+   * Adds the messages that start and stop the given note to the given track.
+   *
+   * @param track the track to add to.
+   * @param note  the note to add.
+   * @return the events that start and stop the note.
+   * @throws InvalidMidiDataException if the note cannot be represented as MIDI messages.
+   */
+  private static MidiEvent[] addToTrack(Track track, IMusicNote note)
+          throws InvalidMidiDataException {
+    int vol = note.getVolume();
+    int midiNum = note.midiNumber();
+
+    int outputChannel = 10; // Standard piano sound
+
+    // Adds the note to the track
+    MidiMessage onMsg = new ShortMessage(ShortMessage.NOTE_ON, outputChannel, midiNum, vol);
+    MidiMessage offMsg = new ShortMessage(ShortMessage.NOTE_OFF, outputChannel, midiNum, vol);
+    MidiEvent on = new MidiEvent(onMsg, note.getStartLocation());
+    MidiEvent off = new MidiEvent(offMsg, note.getEndLocation()); //Remember to remove +1
+    track.add(on);
+    track.add(off);
+    return new MidiEvent[]{on, off};
   }
 
   @Override
@@ -194,11 +344,19 @@ public class MidiViewer extends JFrame implements IAudioView<IReadOnlyModel<IMus
 
   @Override
   public void addKeyListeners(KeyListener listener) {
-    addKeyListener(listener);
+    this.keyListeners.add(listener);
+    if (this.window != null) {
+      this.window.addKeyListener(listener);
+    }
   }
 
   @Override
   public void run() {
-    setVisible(true);
+    if (this.window == null) {
+      this.window = new JFrame();
+      this.keyListeners.forEach(this.window::addKeyListener);
+    }
+    this.window.setVisible(true);
+    requestKeyFocus();
   }
 }
\ No newline at end of file
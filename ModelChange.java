@@ -0,0 +1,234 @@
+package cs3500.music.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one change made to a musical composition, along with the range of beats and sounds
+ * it affects, so that listeners can update only what depends on that range.
+ */
+public final class ModelChange {
+
+  /**
+   * Represents the kinds of changes that can be made to a musical composition.
+   */
+  public enum Kind {
+    NOTE_ADDED, NOTE_REMOVED, NOTE_REPLACED, TEMPO_CHANGED, REPEAT_ADDED, REPEAT_REMOVED,
+    PIECE_COMBINED
+  }
+
+  private final Kind kind;
+  private final int fromBeat;
+  private final int toBeat;
+  private final int lowMidi;
+  private final int highMidi;
+  private final IMusicNote note;
+  private final IMusicNote replacement;
+  private final Repeat repeat;
+  private final List<IMusicNote> joined;
+
+  /**
+   * Constructs a new ModelChange.
+   *
+   * @param kind        the kind of change.
+   * @param fromBeat    the first beat affected.
+   * @param toBeat      the last beat affected.
+   * @param lowMidi     the Midi Number of the lowest sound affected, or -1 if no sound is.
+   * @param highMidi    the Midi Number of the highest sound affected, or -1 if no sound is.
+   * @param note        the note added, removed or swapped out, if any.
+   * @param replacement the note swapped in, if any.
+   * @param repeat      the repeat added or removed, if any.
+   * @param joined      the notes added by joining another piece, if any.
+   */
+  private ModelChange(Kind kind, int fromBeat, int toBeat, int lowMidi, int highMidi,
+                      IMusicNote note, IMusicNote replacement, Repeat repeat,
+                      List<IMusicNote> joined) {
+    this.kind = kind;
+    this.fromBeat = fromBeat;
+    this.toBeat = toBeat;
+    this.lowMidi = lowMidi;
+    this.highMidi = highMidi;
+    this.note = note;
+    this.replacement = replacement;
+    this.repeat = repeat;
+    this.joined = joined;
+  }
+
+  /**
+   * Creates the change describing the given note being written into the composition.
+   *
+   * @param note the note added.
+   * @return the change.
+   */
+  public static ModelChange noteAdded(IMusicNote note) {
+    return new ModelChange(Kind.NOTE_ADDED, note.getStartLocation(), note.getEndLocation(),
+            note.midiNumber(), note.midiNumber(), note, null, null, null);
+  }
+
+  /**
+   * Creates the change describing the given note being removed from the composition.
+   *
+   * @param note the note removed.
+   * @return the change.
+   */
+  public static ModelChange noteRemoved(IMusicNote note) {
+    return new ModelChange(Kind.NOTE_REMOVED, note.getStartLocation(), note.getEndLocation(),
+            note.midiNumber(), note.midiNumber(), note, null, null, null);
+  }
+
+  /**
+   * Creates the change describing the first given note being replaced by the second.
+   *
+   * @param currentNote the note swapped out.
+   * @param newNote     the note swapped in.
+   * @return the change.
+   */
+  public static ModelChange noteReplaced(IMusicNote currentNote, IMusicNote newNote) {
+    return new ModelChange(Kind.NOTE_REPLACED,
+            Math.min(currentNote.getStartLocation(), newNote.getStartLocation()),
+            Math.max(currentNote.getEndLocation(), newNote.getEndLocation()),
+            Math.min(currentNote.midiNumber(), newNote.midiNumber()),
+            Math.max(currentNote.midiNumber(), newNote.midiNumber()),
+            currentNote, newNote, null, null);
+  }
+
+  /**
+   * Creates the change describing the tempo of the composition being set. A tempo change affects
+   * every beat, but no sound.
+   *
+   * @return the change.
+   */
+  public static ModelChange tempoChanged() {
+    return new ModelChange(Kind.TEMPO_CHANGED, 0, Integer.MAX_VALUE, -1, -1, null, null, null,
+            null);
+  }
+
+  /**
+   * Creates the change describing the given repeat being added to the composition.
+   *
+   * @param repeat the repeat added.
+   * @return the change.
+   */
+  public static ModelChange repeatAdded(Repeat repeat) {
+    return new ModelChange(Kind.REPEAT_ADDED, repeat.getStartBeat(),
+            repeat.getRepeatDuration(), -1, -1, null, null, repeat, null);
+  }
+
+  /**
+   * Creates the change describing the given repeat being removed from the composition.
+   *
+   * @param repeat the repeat removed.
+   * @return the change.
+   */
+  public static ModelChange repeatRemoved(Repeat repeat) {
+    return new ModelChange(Kind.REPEAT_REMOVED, repeat.getStartBeat(),
+            repeat.getRepeatDuration(), -1, -1, null, null, repeat, null);
+  }
+
+  /**
+   * Creates the change describing another piece being joined into the composition.
+   *
+   * @param joined the notes added to the composition by the join.
+   * @return the change.
+   */
+  public static ModelChange piecesCombined(List<IMusicNote> joined) {
+    int fromBeat = Integer.MAX_VALUE;
+    int toBeat = -1;
+    int lowMidi = Integer.MAX_VALUE;
+    int highMidi = -1;
+    for (IMusicNote note : joined) {
+      fromBeat = Math.min(fromBeat, note.getStartLocation());
+      toBeat = Math.max(toBeat, note.getEndLocation());
+      lowMidi = Math.min(lowMidi, note.midiNumber());
+      highMidi = Math.max(highMidi, note.midiNumber());
+    }
+    if (joined.isEmpty()) {
+      fromBeat = 0;
+      lowMidi = -1;
+    }
+    return new ModelChange(Kind.PIECE_COMBINED, fromBeat, toBeat, lowMidi, highMidi, null, null,
+            null, Collections.unmodifiableList(new ArrayList<>(joined)));
+  }
+
+  /**
+   * Provides the kind of this change.
+   *
+   * @return the kind of change.
+   */
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Provides the first beat affected by this change.
+   *
+   * @return the first affected beat.
+   */
+  public int getFromBeat() {
+    return this.fromBeat;
+  }
+
+  /**
+   * Provides the last beat affected by this change.
+   *
+   * @return the last affected beat.
+   */
+  public int getToBeat() {
+    return this.toBeat;
+  }
+
+  /**
+   * Provides the Midi Number of the lowest sound affected by this change.
+   *
+   * @return the lowest affected Midi Number, or -1 if this change affects no sound.
+   */
+  public int getLowMidi() {
+    return this.lowMidi;
+  }
+
+  /**
+   * Provides the Midi Number of the highest sound affected by this change.
+   *
+   * @return the highest affected Midi Number, or -1 if this change affects no sound.
+   */
+  public int getHighMidi() {
+    return this.highMidi;
+  }
+
+  /**
+   * Provides the note that was added, removed, or swapped out by this change.
+   *
+   * @return the note, or null if this change is not about a single note.
+   */
+  public IMusicNote getNote() {
+    return this.note;
+  }
+
+  /**
+   * Provides the note that was swapped in by this change.
+   *
+   * @return the replacement note, or null if this is not a NOTE_REPLACED change.
+   */
+  public IMusicNote getReplacement() {
+    return this.replacement;
+  }
+
+  /**
+   * Provides the repeat that was added or removed by this change.
+   *
+   * @return the repeat, or null if this is not a REPEAT_ADDED or REPEAT_REMOVED change.
+   */
+  public Repeat getRepeat() {
+    return this.repeat;
+  }
+
+  /**
+   * Provides the notes that were added to the composition by joining another piece to it.
+   *
+   * @return the joined notes, or null if this is not a PIECE_COMBINED change.
+   */
+  public List<IMusicNote> getJoinedNotes() {
+    return this.joined;
+  }
+}
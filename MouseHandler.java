@@ -7,6 +7,7 @@ import java.awt.event.MouseListener;
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
 import cs3500.music.model.MusicalOperations;
+import cs3500.music.util.MusicEvents;
 
 /**
  * MouseListeners class. Handles mouse clicks to update model and view accordingly.
@@ -35,7 +36,17 @@ public class MouseHandler implements MouseListener {
 
   @Override
   public void mouseReleased(MouseEvent e) {
+    MusicEvents.Input event = new MusicEvents.Input();
+    event.begin();
+    long handledAt = System.currentTimeMillis();
     controller.configureMouseHandler(e);
+    event.end();
+    if (event.shouldCommit()) {
+      event.kind = "mouse release";
+      event.code = e.getButton();
+      event.queued = Math.max(0, handledAt - e.getWhen());
+      event.commit();
+    }
   }
 
   @Override
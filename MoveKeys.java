@@ -5,6 +5,8 @@ import java.awt.event.KeyListener;
 import java.util.HashMap;
 import java.util.Map;
 
+import cs3500.music.util.MusicEvents;
+
 /**
  * Keyboard handler class. Modeled from lecture notes code. Handles key presses to update model
  * and view accordingly.
@@ -46,15 +48,36 @@ public class MoveKeys implements KeyListener {
 
   @Override
   public void keyPressed(KeyEvent e) {
-    if (keyPresses.containsKey(e.getKeyCode())) {
-      keyPresses.get(e.getKeyCode()).run();
-    }
+    handle(e, "key press", keyPresses);
   }
 
   @Override
   public void keyReleased(KeyEvent e) {
-    if (keyReleases.containsKey(e.getKeyCode())) {
-      keyReleases.get(e.getKeyCode()).run();
+    handle(e, "key release", keyReleases);
+  }
+
+  /**
+   * Runs the action for the key of the given event, if it has one, recording how long it took.
+   *
+   * @param e       the key event.
+   * @param kind    what was done with the key.
+   * @param actions the actions by key code.
+   */
+  private void handle(KeyEvent e, String kind, Map<Integer, Runnable> actions) {
+    Runnable action = actions.get(e.getKeyCode());
+    if (action == null) {
+      return;
+    }
+    MusicEvents.Input event = new MusicEvents.Input();
+    event.begin();
+    long handledAt = System.currentTimeMillis();
+    action.run();
+    event.end();
+    if (event.shouldCommit()) {
+      event.kind = kind;
+      event.code = e.getKeyCode();
+      event.queued = Math.max(0, handledAt - e.getWhen());
+      event.commit();
     }
   }
 
@@ -4,12 +4,15 @@ package cs3500.music;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.lang.reflect.Array;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 import javax.sound.midi.MidiUnavailableException;
 
 import cs3500.music.controller.CompositeControllerImp;
 import cs3500.music.controller.IController;
 import cs3500.music.view.IView;
+import cs3500.music.util.BatchConverter;
 import cs3500.music.util.ViewFactory;
 
 
@@ -19,11 +22,17 @@ public class MusicEditor {
    * The main method for the MusicEditor, runs the given file in the given type of view.
    * @param args the arguments required to run the MusicEditor. The first argument should be the
    *             the path to the file containing the song to play, the second argument should be
-   *             a specifier for the type of view to run.
+   *             a specifier for the type of view to run. If the first argument is "batch", the
+   *             rest are passed on to the BatchConverter instead.
    * @throws IllegalArgumentException if the specified file can't be found.
    */
   public static void main(String[] args) throws IllegalArgumentException {
 
+    if (args.length > 0 && args[0].equals("batch")) {
+      BatchConverter.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
     // Verifies number of arguments.
     //if (Array.getLength(args) < 2) {
       //throw new IllegalArgumentException("Invalid number of parameters given.");
@@ -38,7 +47,7 @@ public class MusicEditor {
       filePath = "mystery-2.txt";//args[0];
       viewType = "composite";//args[1];
       file = new FileReader(filePath);
-      IController con = new CompositeControllerImp(file);
+      IController con = new CompositeControllerImp(file, Paths.get(filePath + ".session"));
       con.run();
 
     } catch (FileNotFoundException f) {
@@ -0,0 +1,156 @@
+package cs3500.music.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Holds the JDK Flight Recorder events that the MusicEditor emits, so that where its time goes can
+ * be recorded in production. The events are enabled, and given the thresholds below which they are
+ * not recorded, by the music-editor.jfc configuration, which can be given to the JVM alongside the
+ * configuration for the JDK's own events:
+ *
+ * <pre>java -XX:StartFlightRecording:settings=default,settings=music-editor.jfc,filename=run.jfr
+ * </pre>
+ *
+ * <p>Every event is created, begun and committed on the thread doing the work it times. Its fields
+ * are only worked out once shouldCommit says it is being recorded, so an event that is disabled
+ * costs no more than checking that it is.</p>
+ */
+public final class MusicEvents {
+  private static final String CATEGORY = "Music Editor";
+
+  private MusicEvents() {
+  }
+
+  /**
+   * Records the parsing of one song file by the MusicReader.
+   */
+  @Name("cs3500.music.Parse")
+  @Label("Parse Song")
+  @Category(CATEGORY)
+  @Description("Reading a song file into a composition")
+  public static final class Parse extends Event {
+    @Label("Notes")
+    public int notes;
+
+    @Label("Notes per Second")
+    public double notesPerSecond;
+  }
+
+  /**
+   * Records one batch of edits applied to a model by its edit queue.
+   */
+  @Name("cs3500.music.ModelEdit")
+  @Label("Model Edit")
+  @Category(CATEGORY)
+  @Description("Applying a batch of queued edits to the model")
+  public static final class ModelEdit extends Event {
+    @Label("Edits")
+    @Description("The edits in the batch, after bursts were coalesced")
+    public int edits;
+
+    @Label("Rejected Edits")
+    @Description("The edits in the batch that were invalid and dropped")
+    public int rejected;
+
+    @Label("Changes")
+    @Description("The changes the batch made, as told to the listeners of the model")
+    public int changes;
+  }
+
+  /**
+   * Records one computation of the map from beats to the notes at every sound on them.
+   */
+  @Name("cs3500.music.ComputeMap")
+  @Label("Compute Map")
+  @Category(CATEGORY)
+  @Description("Looking up the note at every sound on every beat of a piece")
+  public static final class ComputeMap extends Event {
+    @Label("Beats")
+    public int beats;
+
+    @Label("Sounds")
+    public int sounds;
+  }
+
+  /**
+   * Records one painting of the editor panel of the GUI.
+   */
+  @Name("cs3500.music.Paint")
+  @Label("Paint Editor")
+  @Category(CATEGORY)
+  @Description("Painting the editor panel of the GUI")
+  public static final class Paint extends Event {
+    @Label("Notes Drawn")
+    @Description("The notes playing within the beats that were painted")
+    public int notesDrawn;
+
+    @Label("Tiles Drawn")
+    public int tilesDrawn;
+
+    @Label("Tiles Missing")
+    @Description("The tiles not rendered for the latest edits yet, and left for a later paint")
+    public int tilesMissing;
+  }
+
+  /**
+   * Records one loading of a song into the sequencer of the MIDI view.
+   */
+  @Name("cs3500.music.SequenceLoad")
+  @Label("Load Sequence")
+  @Category(CATEGORY)
+  @Description("Building the MIDI sequence of a song and giving it to the sequencer")
+  public static final class SequenceLoad extends Event {
+    @Label("Notes")
+    public int notes;
+
+    @Label("MIDI Events Built")
+    public int events;
+  }
+
+  /**
+   * Records the handling of one key or mouse event by a controller.
+   */
+  @Name("cs3500.music.Input")
+  @Label("Input")
+  @Category(CATEGORY)
+  @Description("Handling a key or mouse event on the Event Dispatch Thread")
+  public static final class Input extends Event {
+    @Label("Kind")
+    @Description("What the user did, such as a key press or a mouse release")
+    public String kind;
+
+    @Label("Code")
+    @Description("The key code, or the mouse button")
+    public int code;
+
+    @Label("Queued")
+    @Description("How long the event waited before it was handled")
+    @Timespan(Timespan.MILLISECONDS)
+    public long queued;
+  }
+
+  /**
+   * Records the publication of edited models to the views, once per frame that has edits to show.
+   */
+  @Name("cs3500.music.Refresh")
+  @Label("Refresh")
+  @Category(CATEGORY)
+  @Description("Publishing the edits made since the last frame to the views")
+  public static final class Refresh extends Event {
+    @Label("Edits")
+    public int edits;
+
+    @Label("Changes")
+    public int changes;
+
+    @Label("Input to Refresh")
+    @Description("The time from the input behind the oldest of the edits to their publication")
+    @Timespan(Timespan.MILLISECONDS)
+    public long latency;
+  }
+}
@@ -1,8 +1,10 @@
 package cs3500.music.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 
 import cs3500.music.util.CompositionBuilder;
@@ -16,6 +18,7 @@ public class MusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
   private int measureLength;
   private int tempo;
   private List<Repeat> repeats = new ArrayList<>();
+  private final List<IModelListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
    * Constructs a new MusicModel, initializing the measures field to a new, empty list.
@@ -44,11 +47,21 @@ public class MusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
 
   @Override
   public IMusicPiece getPieceAfter(int start) {
-    List<IMusicNote> afterNotes = this.song.getNotesAfter(start);
+    List<IMusicNote> afterNotes = this.song.slice(start, Integer.MAX_VALUE);
 
     return new Opus(this.song.getMeasureDuration(), afterNotes, this.song.getTempo());
   }
 
+  @Override
+  public List<IMusicNote> getNotesBetween(int fromBeat, int toBeat) {
+    return this.song.slice(fromBeat, toBeat);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesPlaying(int fromBeat, int toBeat) {
+    return this.song.playing(fromBeat, toBeat);
+  }
+
   @Override
   public Map<Integer, List<IMusicNote>> getPieceByTime() {
     return this.song.computeMap();
@@ -57,27 +70,56 @@ public class MusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
   @Override
   public void writeNote(IMusicNote addedNote) {
     this.song.addNote(addedNote);
+    fire(ModelChange.noteAdded(addedNote));
   }
 
   @Override
   public void removeNote(IMusicNote note) throws IllegalArgumentException {
     this.song.delete(note);
+    fire(ModelChange.noteRemoved(note));
   }
 
   @Override
   public void replaceNote(IMusicNote currentNote, IMusicNote newNote) throws
           IllegalArgumentException {
     this.song.replace(currentNote, newNote);
+    fire(ModelChange.noteReplaced(currentNote, newNote));
+  }
+
+  @Override
+  public void applyEdits(List<NoteEdit<IMusicNote>> edits) throws IllegalArgumentException {
+    this.song.applyEdits(edits);
+    if (this.listeners.isEmpty()) {
+      return;
+    }
+
+    List<ModelChange> changes = new ArrayList<>(edits.size());
+    for (NoteEdit<IMusicNote> edit : edits) {
+      switch (edit.getKind()) {
+        case WRITE:
+          changes.add(ModelChange.noteAdded(edit.getNote()));
+          break;
+        case REMOVE:
+          changes.add(ModelChange.noteRemoved(edit.getNote()));
+          break;
+        default:
+          changes.add(ModelChange.noteReplaced(edit.getNote(), edit.getReplacement()));
+          break;
+      }
+    }
+    fire(changes);
   }
 
   @Override
   public void combinePieces(IMusicPiece toJoin, boolean simultaneous) throws
           IllegalArgumentException {
+    List<IMusicNote> joined;
     if (simultaneous) {
-      this.song.joinPieceIntegrated(toJoin);
+      joined = this.song.joinPieceIntegrated(toJoin);
     } else {
-      this.song.joinPiecePlayAfter(toJoin);
+      joined = this.song.joinPiecePlayAfter(toJoin);
     }
+    fire(ModelChange.piecesCombined(joined));
   }
 
   @Override
@@ -99,6 +141,7 @@ public class MusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
   public void setTempo(int newTempo) {
     this.tempo = newTempo;
     this.song.setTempo(newTempo);
+    fire(ModelChange.tempoChanged());
   }
 
   @Override
@@ -183,6 +226,47 @@ public class MusicModel implements MusicalOperations<IMusicNote, IMusicPiece> {
         repeats.add(repeat);
       }
     }
+    fire(ModelChange.repeatAdded(repeat));
+  }
+
+  @Override
+  public void removeRepeat(Repeat repeat) throws IllegalArgumentException {
+    if (!repeats.remove(repeat)) {
+      throw new IllegalArgumentException("The Repeat specified to remove does not exist.");
+    }
+    fire(ModelChange.repeatRemoved(repeat));
+  }
+
+  @Override
+  public void addListener(IModelListener listener) {
+    this.listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(IModelListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Tells every listener about the given change.
+   *
+   * @param change the change made to this model.
+   */
+  private void fire(ModelChange change) {
+    if (!this.listeners.isEmpty()) {
+      fire(Collections.singletonList(change));
+    }
+  }
+
+  /**
+   * Tells every listener about the given changes, in one call.
+   *
+   * @param changes the changes made to this model.
+   */
+  private void fire(List<ModelChange> changes) {
+    for (IModelListener listener : this.listeners) {
+      listener.modelChanged(changes);
+    }
   }
 
   /**
@@ -1,16 +1,21 @@
 package cs3500.music.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a musical note, with a pitch, octave, and duration.
  */
 public class MusicNote implements IMusicNote {
+  private static final AtomicLong NEXT_ID = new AtomicLong();
+
+  private final long id = NEXT_ID.getAndIncrement();
   private final PitchType pitch;
   private final double duration;
   private final int octave;
-  private int startLocation;
-  private int endLocation;
-  private int instrument;
-  private int volume;
+  private final int startLocation;
+  private final int endLocation;
+  private final int instrument;
+  private final int volume;
 
   /**
    * Constructs a new MusicNote object, with a pitch of the given PitchType, lasting as long as
@@ -70,8 +75,14 @@ public class MusicNote implements IMusicNote {
     this.duration = (this.endLocation - start);
     this.instrument = instrument;
     this.volume = volume;
-    this.octave = (midiNum - 12) / 12;
-    this.pitch = PitchType.values()[midiNum % 12];
+    SoundPair sound = SoundPair.of(midiNum);
+    this.octave = sound.getOctave();
+    this.pitch = sound.getPitch();
+  }
+
+  @Override
+  public long getId() {
+    return id;
   }
 
   @Override
@@ -101,7 +112,7 @@ public class MusicNote implements IMusicNote {
 
   @Override
   public SoundPair getSoundPair() {
-    return new SoundPair(this.pitch, this.octave);
+    return SoundPair.of(this.pitch, this.octave);
   }
 
   @Override
@@ -114,18 +125,25 @@ public class MusicNote implements IMusicNote {
     return Integer.valueOf(this.volume);
   }
 
-  @Override
-  public void setVolume(int newVolume) {
-    if (newVolume < 0 || newVolume > 127) {
-      throw new IllegalArgumentException("Volume value must be between 0 and 127, inclusive.");
-    }
-    this.volume = newVolume;
+  /**
+   * Constructs a new MusicNote object that is a copy of the given one, moved by the given number
+   * of beats.
+   * @param source the note to copy.
+   * @param beats the number of beats by which to move the copy.
+   */
+  private MusicNote(MusicNote source, int beats) {
+    this.pitch = source.pitch;
+    this.duration = source.duration;
+    this.octave = source.octave;
+    this.startLocation = source.startLocation + beats;
+    this.endLocation = source.endLocation + beats;
+    this.instrument = source.instrument;
+    this.volume = source.volume;
   }
 
   @Override
-  public void changeLocations(double delta) {
-    this.startLocation += delta;
-    this.endLocation = (int) Math.ceil(this.startLocation - 1 + this.duration);
+  public IMusicNote shiftedBy(int beats) {
+    return new MusicNote(this, beats);
   }
 
   @Override
@@ -151,7 +169,8 @@ public class MusicNote implements IMusicNote {
         return soundCheck + (2 * ((int) Math.signum(soundCheck)));
       }
     } else {
-      return (this.startLocation - other.getStartLocation()) * 18;
+      // Compared rather than subtracted, which would overflow for beats far enough apart.
+      return Integer.compare(this.startLocation, other.getStartLocation()) * 18;
     }
   }
 
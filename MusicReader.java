@@ -27,6 +27,10 @@ public class MusicReader {
    * @return model implementation that would be build from the given song file and model builder.
    */
   public static <T> T parseFile(Readable readable, CompositionBuilder<T> piece) {
+    MusicEvents.Parse event = new MusicEvents.Parse();
+    event.begin();
+    long start = System.nanoTime();
+    int notes = 0;
     Scanner scanner = new Scanner(readable);
     while (scanner.hasNext()) {
       String lineType = scanner.next();
@@ -46,6 +50,7 @@ public class MusicReader {
             int pitch = scanner.nextInt();
             int volume = scanner.nextInt();
             piece.addNote(startBeat, endBeat, instrument, pitch, volume);
+            notes += 1;
           } catch (NoSuchElementException e) {
             throw new IllegalArgumentException("Malformed note line: " + scanner.nextLine());
           }
@@ -55,6 +60,13 @@ public class MusicReader {
       }
     }
 
-    return piece.build();
+    T built = piece.build();
+    event.end();
+    if (event.shouldCommit()) {
+      event.notes = notes;
+      event.notesPerSecond = notes * 1e9 / Math.max(1, System.nanoTime() - start);
+      event.commit();
+    }
+    return built;
   }
 }
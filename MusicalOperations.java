@@ -27,6 +27,24 @@ public interface MusicalOperations<T, U> {
    */
   U getPieceAfter(int start);
 
+  /**
+   * Provides a read-only view of the notes in the musical composition that start within the given
+   * range of beats, in order of starting beat, without copying the piece.
+   * @param fromBeat the first starting beat to include.
+   * @param toBeat the last starting beat to include.
+   * @return the notes that start within [fromBeat, toBeat].
+   */
+  List<T> getNotesBetween(int fromBeat, int toBeat);
+
+  /**
+   * Provides the notes in the musical composition that are playing on any beat within the given
+   * range, in order of starting beat, looking only at the notes near that range.
+   * @param fromBeat the first beat of the range.
+   * @param toBeat the last beat of the range.
+   * @return the notes that play on some beat within [fromBeat, toBeat].
+   */
+  List<T> getNotesPlaying(int fromBeat, int toBeat);
+
   /**
    * Provides a view of the piece associated with the musical composition, with its values
    * organized by time.
@@ -60,6 +78,15 @@ public interface MusicalOperations<T, U> {
    */
   void replaceNote(T currentNote, T newNote);
 
+  /**
+   * Applies the given batch of edits to the musical composition, in order. The whole batch is
+   * validated before anything is changed, so either every edit is applied or none are.
+   *
+   * @param edits the edits to apply.
+   * @throws IllegalArgumentException if an edit removes or replaces a note that does not exist.
+   */
+  void applyEdits(List<NoteEdit<T>> edits) throws IllegalArgumentException;
+
   /**
    * Combines the given IMusicPiece with the existing IMusicPiece, resulting in the two pieces
    * playing in one song.
@@ -139,4 +166,23 @@ public interface MusicalOperations<T, U> {
    */
   void addRepeat(Repeat repeat);
 
+  /**
+   * Removes the given repeat from the musical composition.
+   * @param repeat the repeat to remove.
+   * @throws IllegalArgumentException if the composition does not contain the repeat.
+   */
+  void removeRepeat(Repeat repeat) throws IllegalArgumentException;
+
+  /**
+   * Registers the given listener to be told about every change to the musical composition.
+   * @param listener the listener to add.
+   */
+  void addListener(IModelListener listener);
+
+  /**
+   * Stops telling the given listener about changes to the musical composition.
+   * @param listener the listener to remove.
+   */
+  void removeListener(IModelListener listener);
+
 }
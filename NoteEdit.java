@@ -0,0 +1,96 @@
+package cs3500.music.model;
+
+/**
+ * Represents a single edit to the notes of a musical composition, to be applied as part of a
+ * batch. Parametrized over the type of note being edited.
+ */
+public final class NoteEdit<T> {
+
+  /**
+   * Represents the kinds of edits that can be made to a note.
+   */
+  public enum Kind {
+    WRITE, REMOVE, REPLACE
+  }
+
+  private final Kind kind;
+  private final T note;
+  private final T replacement;
+
+  /**
+   * Constructs a new NoteEdit.
+   *
+   * @param kind        the kind of edit.
+   * @param note        the note to write, remove, or swap out.
+   * @param replacement the note to swap in, or null unless this is a REPLACE edit.
+   */
+  private NoteEdit(Kind kind, T note, T replacement) {
+    if (note == null || (kind == Kind.REPLACE && replacement == null)) {
+      throw new IllegalArgumentException("An edit must specify the notes it applies to.");
+    }
+    this.kind = kind;
+    this.note = note;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Creates an edit that writes the given note into the composition.
+   *
+   * @param note the note to write.
+   * @param <T>  the type of note.
+   * @return the edit.
+   */
+  public static <T> NoteEdit<T> write(T note) {
+    return new NoteEdit<>(Kind.WRITE, note, null);
+  }
+
+  /**
+   * Creates an edit that removes the given note from the composition.
+   *
+   * @param note the note to remove.
+   * @param <T>  the type of note.
+   * @return the edit.
+   */
+  public static <T> NoteEdit<T> remove(T note) {
+    return new NoteEdit<>(Kind.REMOVE, note, null);
+  }
+
+  /**
+   * Creates an edit that replaces the first given note with the second given note.
+   *
+   * @param currentNote the note to swap out.
+   * @param newNote     the note to swap in.
+   * @param <T>         the type of note.
+   * @return the edit.
+   */
+  public static <T> NoteEdit<T> replace(T currentNote, T newNote) {
+    return new NoteEdit<>(Kind.REPLACE, currentNote, newNote);
+  }
+
+  /**
+   * Provides the kind of this edit.
+   *
+   * @return the kind of edit.
+   */
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /**
+   * Provides the note this edit writes, removes, or swaps out.
+   *
+   * @return the note.
+   */
+  public T getNote() {
+    return this.note;
+  }
+
+  /**
+   * Provides the note this edit swaps in, if it is a REPLACE edit.
+   *
+   * @return the replacement note, or null if this is not a REPLACE edit.
+   */
+  public T getReplacement() {
+    return this.replacement;
+  }
+}
@@ -3,12 +3,26 @@ package cs3500.music.model;
 import java.util.Comparator;
 
 /**
- * Represents a Comparator function-object for comparing notes on the basis of location.
+ * Represents a Comparator function-object for comparing notes on the basis of location: by
+ * starting beat, then ending beat, then Midi Number, then instrument. To sort many notes in this
+ * order, the NoteLocationSorter does so without comparing them.
  */
 public class NoteLocationComparator implements Comparator<IMusicNote> {
 
   @Override
   public int compare(IMusicNote n1, IMusicNote n2) {
-    return n1.compareByLocation(n2);
+    int byStart = Integer.compare(n1.getStartLocation(), n2.getStartLocation());
+    if (byStart != 0) {
+      return byStart;
+    }
+    int byEnd = Integer.compare(n1.getEndLocation(), n2.getEndLocation());
+    if (byEnd != 0) {
+      return byEnd;
+    }
+    int bySound = Integer.compare(n1.midiNumber(), n2.midiNumber());
+    if (bySound != 0) {
+      return bySound;
+    }
+    return Integer.compare(n1.getInstrument(), n2.getInstrument());
   }
 }
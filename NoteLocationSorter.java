@@ -0,0 +1,145 @@
+package cs3500.music.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Sorts notes into the order of the NoteLocationComparator, by starting beat, then ending beat,
+ * then Midi Number, then instrument, without comparing them. Each note is given a key that packs
+ * those four values into a long, and the keys are sorted by a least significant digit radix sort
+ * that carries the index of each note along, so sorting takes time linear in the number of notes.
+ *
+ * <p>Each value only takes up as many bits of the key as the range it covers among the notes being
+ * sorted. Should the four ranges together need more bits than a long has, such as for notes spread
+ * over billions of beats, the notes are sorted with the NoteLocationComparator instead.</p>
+ */
+public final class NoteLocationSorter {
+  private static final int DIGIT_BITS = 11;
+  private static final int DIGITS = 1 << DIGIT_BITS;
+
+  private NoteLocationSorter() {
+  }
+
+  /**
+   * Sorts the given notes in place. The sort is stable, so notes with the same location, sound and
+   * instrument stay in the order they were given in.
+   *
+   * @param notes the notes to sort.
+   */
+  public static void sort(List<IMusicNote> notes) {
+    if (notes.size() < 2) {
+      return;
+    }
+    IMusicNote[] all = notes.toArray(new IMusicNote[0]);
+
+    long minStart = Long.MAX_VALUE;
+    long maxStart = Long.MIN_VALUE;
+    long minLength = Long.MAX_VALUE;
+    long maxLength = Long.MIN_VALUE;
+    long minMidi = Long.MAX_VALUE;
+    long maxMidi = Long.MIN_VALUE;
+    long minInstrument = Long.MAX_VALUE;
+    long maxInstrument = Long.MIN_VALUE;
+    for (IMusicNote note : all) {
+      long start = note.getStartLocation();
+      // Among notes starting together, the one ending first is the shortest.
+      long length = (long) note.getEndLocation() - start;
+      minStart = Math.min(minStart, start);
+      maxStart = Math.max(maxStart, start);
+      minLength = Math.min(minLength, length);
+      maxLength = Math.max(maxLength, length);
+      minMidi = Math.min(minMidi, note.midiNumber());
+      maxMidi = Math.max(maxMidi, note.midiNumber());
+      minInstrument = Math.min(minInstrument, note.getInstrument());
+      maxInstrument = Math.max(maxInstrument, note.getInstrument());
+    }
+
+    int instrumentBits = bitsFor(maxInstrument - minInstrument);
+    int midiBits = bitsFor(maxMidi - minMidi);
+    int lengthBits = bitsFor(maxLength - minLength);
+    int keyBits = bitsFor(maxStart - minStart) + lengthBits + midiBits + instrumentBits;
+    if (keyBits >= Long.SIZE) {
+      notes.sort(new NoteLocationComparator());
+      return;
+    }
+
+    long[] keys = new long[all.length];
+    int[] order = new int[all.length];
+    for (int i = 0; i < all.length; i += 1) {
+      IMusicNote note = all[i];
+      long start = note.getStartLocation();
+      keys[i] = (start - minStart) << (lengthBits + midiBits + instrumentBits)
+              | ((long) note.getEndLocation() - start - minLength) << (midiBits + instrumentBits)
+              | (note.midiNumber() - minMidi) << instrumentBits
+              | (note.getInstrument() - minInstrument);
+      order[i] = i;
+    }
+    radixSort(keys, order, keyBits);
+
+    ListIterator<IMusicNote> it = notes.listIterator();
+    for (int index : order) {
+      it.next();
+      it.set(all[index]);
+    }
+  }
+
+  /**
+   * Sorts the given keys, and the indices alongside them, by a stable radix sort of the given
+   * number of low bits, one digit at a time from the least significant. Digits that every key
+   * shares are skipped.
+   *
+   * @param keys    the keys, which are not negative.
+   * @param order   the index belonging to each key.
+   * @param keyBits the number of low bits the keys use.
+   */
+  private static void radixSort(long[] keys, int[] order, int keyBits) {
+    long[] keysOut = new long[keys.length];
+    int[] orderOut = new int[order.length];
+    int[] counts = new int[DIGITS];
+    long[] fromKeys = keys;
+    int[] fromOrder = order;
+
+    for (int shift = 0; shift < keyBits; shift += DIGIT_BITS) {
+      Arrays.fill(counts, 0);
+      for (long key : fromKeys) {
+        counts[(int) (key >>> shift) & (DIGITS - 1)] += 1;
+      }
+      if (counts[(int) (fromKeys[0] >>> shift) & (DIGITS - 1)] == fromKeys.length) {
+        continue;
+      }
+      int position = 0;
+      for (int digit = 0; digit < DIGITS; digit += 1) {
+        int count = counts[digit];
+        counts[digit] = position;
+        position += count;
+      }
+      for (int i = 0; i < fromKeys.length; i += 1) {
+        int at = counts[(int) (fromKeys[i] >>> shift) & (DIGITS - 1)]++;
+        keysOut[at] = fromKeys[i];
+        orderOut[at] = fromOrder[i];
+      }
+
+      long[] swapKeys = fromKeys;
+      fromKeys = keysOut;
+      keysOut = swapKeys;
+      int[] swapOrder = fromOrder;
+      fromOrder = orderOut;
+      orderOut = swapOrder;
+    }
+
+    if (fromOrder != order) {
+      System.arraycopy(fromOrder, 0, order, 0, order.length);
+    }
+  }
+
+  /**
+   * Computes the number of bits needed to hold every value from 0 to the given one.
+   *
+   * @param range the largest value, which is not negative.
+   * @return the number of bits.
+   */
+  private static int bitsFor(long range) {
+    return Long.SIZE - Long.numberOfLeadingZeros(range);
+  }
+}
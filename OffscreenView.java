@@ -0,0 +1,223 @@
+package cs3500.music.view;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JButton;
+
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.MusicModel;
+import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.ReadOnlyModel;
+
+/**
+ * Represents the visual view without a window, for use where there is no display, such as when
+ * the MusicEditor is driven by a test harness. It holds the same editor and piano panels as the
+ * GUIView, and is painted onto an image when asked rather than onto the screen.
+ *
+ * <p>Since the panels are never shown, Swing never repaints them on its own; whoever drives this
+ * view calls paint once per frame instead. Input is given to the listeners that the controller
+ * added, through the keys of the piano and through type.</p>
+ */
+public class OffscreenView implements IVisualView<IReadOnlyModel<IMusicNote, IMusicPiece>> {
+  private final EditorPanel composition;
+  private final PianoPanel piano;
+  private final List<KeyListener> keyListeners = new ArrayList<>();
+  private final BufferedImage frame;
+  private IReadOnlyModel<IMusicNote, IMusicPiece> model;
+  private boolean isPlaying = false;
+
+  /**
+   * Constructs a new OffscreenView of the given model, painting frames of the given size.
+   *
+   * @param inputModel the model to show.
+   * @param width      the width of a frame, in pixels.
+   * @param height     the height of a frame, in pixels.
+   */
+  public OffscreenView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel, int width,
+                       int height) {
+    this.model = inputModel;
+    this.composition = new EditorPanel(inputModel, true);
+    this.composition.setSize(width, height);
+    this.piano = new PianoPanel();
+    this.frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+  }
+
+  /**
+   * Paints the editor panel onto this view's frame, as the screen would once per frame.
+   *
+   * @return whether every tile the frame covers was drawn, rather than some being left until they
+   *         are rendered.
+   */
+  public boolean paint() {
+    Graphics2D g = this.frame.createGraphics();
+    try {
+      this.composition.paint(g);
+    } finally {
+      g.dispose();
+    }
+    return this.composition.isFullyPainted();
+  }
+
+  /**
+   * Stops the threads that render the score of this view. Nothing is painted after this.
+   */
+  public void dispose() {
+    this.composition.dispose();
+  }
+
+  /**
+   * Provides the keys of the piano, which mouse events can be dispatched to.
+   *
+   * @return the keys, from the lowest to the highest.
+   */
+  public List<JButton> getKeys() {
+    List<JButton> keys = new ArrayList<>();
+    for (Component key : this.piano.getContentPane().getComponents()) {
+      if (key instanceof JButton) {
+        keys.add((JButton) key);
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Gives the given key event to every key listener of this view, as a window with the focus
+   * would.
+   *
+   * @param e the key event.
+   */
+  public void type(KeyEvent e) {
+    for (KeyListener listener : this.keyListeners) {
+      switch (e.getID()) {
+        case KeyEvent.KEY_PRESSED:
+          listener.keyPressed(e);
+          break;
+        case KeyEvent.KEY_RELEASED:
+          listener.keyReleased(e);
+          break;
+        default:
+          listener.keyTyped(e);
+          break;
+      }
+    }
+  }
+
+  @Override
+  public IReadOnlyModel<IMusicNote, IMusicPiece> getModel() {
+    IMusicPiece opus = this.model.getPiece();
+    int measureDuration = (int) Math.ceil(opus.getMeasureDuration());
+    int tempo = this.model.getTempo();
+    MusicalOperations<IMusicNote, IMusicPiece> mutable =
+            new MusicModel(opus, measureDuration, tempo);
+
+    return new ReadOnlyModel(mutable);
+  }
+
+  @Override
+  public void run() {
+    // There is no window to show.
+  }
+
+  @Override
+  public void refresh(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
+    if (model == this.model) {
+      // The editor panel listens to this model, and has already patched itself.
+      return;
+    }
+    this.model = model;
+    int curBeat = composition.getCurBeat();
+    composition.setModel(model);
+    composition.setCurBeat(curBeat + 1);
+  }
+
+  @Override
+  public void play() {
+    this.composition.scroll(this.piano);
+    isPlaying = true;
+  }
+
+  @Override
+  public void pause() {
+    this.composition.haltScroll();
+    isPlaying = false;
+  }
+
+  @Override
+  public void goToStart() {
+    pause();
+    composition.setCurBeat(0);
+  }
+
+  @Override
+  public void goToEnd() {
+    pause();
+    composition.setCurBeat(this.model.getTotalDuration() + 1);
+  }
+
+  @Override
+  public int getTick() {
+    return composition.getCurBeat();
+  }
+
+  @Override
+  public void setTick(int beat) throws IllegalArgumentException {
+    if (beat > this.model.getTotalDuration() + 1) {
+      throw new IllegalArgumentException("The specified beat must exist within the duration of " +
+              "the song!");
+    }
+    composition.setCurBeat(beat);
+  }
+
+  @Override
+  public void highlightActive() {
+    int curBeat = composition.getCurBeat();
+    if (curBeat == 0 || curBeat == model.getTotalDuration() + 1) {
+      return;
+    }
+    piano.highlightPlayingNotes(composition.playingAtCurBeat());
+  }
+
+  @Override
+  public void addKeyListeners(KeyListener listener) {
+    this.keyListeners.add(listener);
+  }
+
+  @Override
+  public void addMouseListeners(MouseListener listener) {
+    piano.addMouseListeners(listener);
+  }
+
+  @Override
+  public void moveRedLine(String direction) {
+    composition.moveRedLine(direction);
+  }
+
+  @Override
+  public IEditorPanel getEditorPanel() {
+    return composition;
+  }
+
+  @Override
+  public boolean isPlaying() {
+    return isPlaying;
+  }
+
+  @Override
+  public void setPlaying() {
+    isPlaying = !isPlaying;
+  }
+
+  @Override
+  public int getCurBeat() {
+    return composition.getCurBeat();
+  }
+}
@@ -1,13 +1,20 @@
 package cs3500.music.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.TreeSet;
 
+import cs3500.music.util.MusicEvents;
 
 /**
  * Represents a musical composition, with a List of IMusicNote to represent the notes to be
@@ -15,8 +22,25 @@ import java.util.stream.Stream;
  */
 public class Opus implements IMusicPiece {
   private double measureDuration;
+  // May hold null tombstones left behind by delete, until they make up a quarter of the list.
   private List<IMusicNote> notes;
+  // Null while this Opus shares its notes with another, until it is first edited.
+  private Map<Long, Integer> slotsById;
+  private int tombstones;
   private int tempo;
+  // The live notes sorted by starting beat, rebuilt by the first slice after an edit. A sorted
+  // list never changes once built, so copies of this Opus can share it.
+  private volatile List<IMusicNote> byStart;
+  // The notes sorted by starting beat as of an earlier edit, and the notes added and removed
+  // since, from which the next sorted list is merged rather than sorted from scratch.
+  private List<IMusicNote> sortedBase;
+  private final List<IMusicNote> addedSinceSort = new ArrayList<>();
+  private final Set<Long> removedSinceSort = new HashSet<>();
+  // The last beat on which a note ends, or -1 until it is next computed. Notes never move, so
+  // only adding, deleting and replacing notes can make it stale.
+  private volatile int lastEnd = -1;
+  // The number of beats the longest note lasts, or -1 until it is next computed.
+  private volatile int longestSpan = -1;
 
   /**
    * Constructs a new Opus object, whose measure length is represented by the given double.
@@ -25,6 +49,7 @@ public class Opus implements IMusicPiece {
   public Opus(double measureDuration, int tempo) {
     this.measureDuration = measureDuration;
     this.notes = new ArrayList<>();
+    this.slotsById = new HashMap<>();
     this.tempo = tempo;
   }
 
@@ -37,8 +62,223 @@ public class Opus implements IMusicPiece {
    */
   public Opus(double measureDuration, List<IMusicNote> notes, int tempo) {
     this.measureDuration = measureDuration;
-    this.notes = notes;
+    this.notes = new ArrayList<>(notes);
     this.tempo = tempo;
+    reindex();
+  }
+
+  /**
+   * Constructs an Opus that shares the given notes rather than copying and indexing them, so
+   * that a version of a composition can be kept cheaply. The notes are only copied if the new
+   * Opus is edited.
+   *
+   * @param measureDuration the maximum number of beats to allow in a measure.
+   * @param sorted          the notes, sorted by starting beat, which must never change.
+   * @param tempo           the tempo of the piece.
+   * @return the new Opus.
+   */
+  public static Opus sharing(double measureDuration, List<IMusicNote> sorted, int tempo) {
+    Opus opus = new Opus(measureDuration, tempo);
+    opus.notes = sorted;
+    opus.slotsById = null;
+    opus.byStart = sorted;
+    return opus;
+  }
+
+  /**
+   * Gives this Opus its own list of notes and ID index, if it still shares its notes.
+   */
+  private void ownNotes() {
+    if (this.slotsById == null) {
+      this.notes = new ArrayList<>(this.notes);
+      reindex();
+    }
+  }
+
+  /**
+   * Provides the notes of this Opus without tombstones. Reading never changes this Opus, so the
+   * list of notes is only copied when it holds tombstones.
+   *
+   * @return the notes, which must not be changed.
+   */
+  private List<IMusicNote> live() {
+    return this.tombstones == 0 ? this.notes : withoutTombstones(this.notes);
+  }
+
+  /**
+   * Copies the given notes, leaving out tombstones.
+   *
+   * @param slots the notes, some of which may be null.
+   * @return the notes that are not null, in order.
+   */
+  private static List<IMusicNote> withoutTombstones(List<IMusicNote> slots) {
+    List<IMusicNote> out = new ArrayList<>(slots.size());
+    for (IMusicNote note : slots) {
+      if (note != null) {
+        out.add(note);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Drops the tombstones from the list of notes once they make up more than a quarter of it, so
+   * that the cost of compacting is spread over the deletes that left them.
+   */
+  private void compactIfSparse() {
+    if (this.tombstones * 4 > this.notes.size()) {
+      this.notes = withoutTombstones(this.notes);
+      reindex();
+    }
+  }
+
+  /**
+   * Rebuilds the index from note IDs to their slots in the list of notes.
+   */
+  private void reindex() {
+    this.slotsById = new HashMap<>();
+    this.tombstones = 0;
+    for (int i = 0; i < this.notes.size(); i += 1) {
+      IMusicNote note = this.notes.get(i);
+      if (note == null) {
+        this.tombstones += 1;
+      } else {
+        this.slotsById.put(note.getId(), i);
+      }
+    }
+  }
+
+  /**
+   * Locates the slot holding the given note. The exact note is found through the ID index in
+   * constant time; if it is not in this Opus, the first note with the same start, end, sound,
+   * instrument and volume is used instead.
+   *
+   * @param note the note to locate.
+   * @return the index of the slot holding the note, or -1 if no slot does.
+   */
+  private int slotOf(IMusicNote note) {
+    Integer slot = this.slotsById.get(note.getId());
+    if (slot != null && this.notes.get(slot) == note) {
+      return slot;
+    }
+    for (int i = 0; i < this.notes.size(); i += 1) {
+      IMusicNote other = this.notes.get(i);
+      if (other != null && fieldsOf(other).equals(fieldsOf(note))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Provides every field that tells the given note apart from another note with a different ID:
+   * its start, end, sound, instrument and volume.
+   *
+   * @param note the note.
+   * @return the fields of the note, which are equal for notes that match.
+   */
+  private static List<Integer> fieldsOf(IMusicNote note) {
+    return Arrays.asList(note.getStartLocation(), note.getEndLocation(), note.midiNumber(),
+            note.getInstrument(), note.getVolume());
+  }
+
+  /**
+   * Puts the given note into the given slot, keeping the ID index up to date.
+   *
+   * @param slot the index of the slot.
+   * @param note the note to put into the slot, or null to leave a tombstone.
+   */
+  private void fillSlot(int slot, IMusicNote note) {
+    this.lastEnd = -1;
+    this.longestSpan = -1;
+    IMusicNote previous = this.notes.set(slot, note);
+    sortedChanged(previous, note);
+    Integer indexed = this.slotsById.get(previous.getId());
+    if (indexed != null && indexed == slot) {
+      this.slotsById.remove(previous.getId());
+    }
+    if (note == null) {
+      this.tombstones += 1;
+      compactIfSparse();
+    } else {
+      this.slotsById.put(note.getId(), slot);
+    }
+  }
+
+  /**
+   * Records that one note was taken out of this Opus and another put in, so that the next sorted
+   * list can be merged from the last one and what changed since.
+   *
+   * @param removed the note taken out, or null.
+   * @param added   the note put in, or null.
+   */
+  private void sortedChanged(IMusicNote removed, IMusicNote added) {
+    List<IMusicNote> sorted = this.byStart;
+    if (sorted != null) {
+      this.sortedBase = sorted;
+      this.addedSinceSort.clear();
+      this.removedSinceSort.clear();
+      this.byStart = null;
+    }
+    if (this.sortedBase == null) {
+      return;
+    }
+    if (removed != null) {
+      this.removedSinceSort.add(removed.getId());
+    }
+    // A note put back after being taken out is already in the sorted list or among the added.
+    if (added != null && !this.removedSinceSort.remove(added.getId())) {
+      this.addedSinceSort.add(added);
+    }
+    if (this.addedSinceSort.size() + this.removedSinceSort.size() > this.sortedBase.size()) {
+      // Sorting from scratch is cheaper by now.
+      this.sortedBase = null;
+      this.addedSinceSort.clear();
+      this.removedSinceSort.clear();
+    }
+  }
+
+  /**
+   * Provides the live notes sorted by starting beat, building the list if an edit has been made
+   * since it was last built. Reading never changes the notes of this Opus.
+   *
+   * @return the sorted notes, which never change.
+   */
+  private List<IMusicNote> sortedNotes() {
+    List<IMusicNote> sorted = this.byStart;
+    if (sorted != null) {
+      return sorted;
+    }
+    IMusicNote[] array;
+    if (this.sortedBase == null) {
+      array = live().toArray(new IMusicNote[0]);
+      Arrays.sort(array, Comparator.comparingInt(IMusicNote::getStartLocation));
+    } else {
+      List<IMusicNote> kept = this.removedSinceSort.isEmpty() ? this.sortedBase
+              : unremoved(this.sortedBase);
+      List<IMusicNote> added = unremoved(this.addedSinceSort);
+      added.sort(Comparator.comparingInt(IMusicNote::getStartLocation));
+      array = mergeByStart(Arrays.asList(kept, added));
+    }
+    sorted = Collections.unmodifiableList(Arrays.asList(array));
+    this.byStart = sorted;
+    return sorted;
+  }
+
+  /**
+   * Copies the given notes, leaving out those taken out since the last sorted list was built.
+   *
+   * @param notes the notes to filter.
+   * @return the notes that were not taken out, in order.
+   */
+  private List<IMusicNote> unremoved(List<IMusicNote> notes) {
+    List<IMusicNote> out = new ArrayList<>(notes.size());
+    for (IMusicNote note : notes) {
+      if (!this.removedSinceSort.contains(note.getId())) {
+        out.add(note);
+      }
+    }
+    return out;
   }
 
   @Override
@@ -53,20 +293,71 @@ public class Opus implements IMusicPiece {
 
   @Override
   public List<IMusicNote> getNotes() {
-    return new ArrayList<>(this.notes);
+    return withoutTombstones(this.notes);
   }
 
   @Override
   public List<IMusicNote> getNotesAfter(int start) {
-    Stream<IMusicNote> noteStream = this.notes.stream();
-    Stream<IMusicNote> filtered =
-            noteStream.filter((IMusicNote note) -> note.getStartLocation() >= start);
+    return new ArrayList<>(slice(start, Integer.MAX_VALUE));
+  }
+
+  @Override
+  public List<IMusicNote> slice(int fromBeat, int toBeat) {
+    List<IMusicNote> sorted = sortedNotes();
+    int from = firstStartingAt(sorted, fromBeat);
+    int to = toBeat == Integer.MAX_VALUE ? sorted.size() : firstStartingAt(sorted, toBeat + 1);
+    return from == 0 && to == sorted.size() ? sorted : sorted.subList(from, Math.max(from, to));
+  }
+
+  @Override
+  public List<IMusicNote> playing(int fromBeat, int toBeat) {
+    int span = this.longestSpan;
+    if (span < 0) {
+      span = 0;
+      for (IMusicNote note : this.notes) {
+        if (note != null) {
+          span = Math.max(span, note.getEndLocation() - note.getStartLocation());
+        }
+      }
+      this.longestSpan = span;
+    }
+
+    List<IMusicNote> out = new ArrayList<>();
+    for (IMusicNote note : slice((int) Math.max((long) fromBeat - span, Integer.MIN_VALUE),
+            toBeat)) {
+      if (note.getEndLocation() >= fromBeat) {
+        out.add(note);
+      }
+    }
+    return out;
+  }
 
-    return filtered.collect(Collectors.toList());
+  /**
+   * Finds the first of the given notes that starts on or after the given beat.
+   *
+   * @param sorted the notes, sorted by starting beat.
+   * @param beat   the beat to search for.
+   * @return the index of the first note starting on or after the beat, or the number of notes if
+   *         there is none.
+   */
+  private static int firstStartingAt(List<IMusicNote> sorted, int beat) {
+    int lo = 0;
+    int hi = sorted.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted.get(mid).getStartLocation() < beat) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
   }
 
   @Override
   public Map<Integer, List<IMusicNote>> computeMap() {
+    MusicEvents.ComputeMap event = new MusicEvents.ComputeMap();
+    event.begin();
     int totalTime = (int) Math.ceil(getTotalDuration());
     Map<Integer, List<IMusicNote>> map = new TreeMap<>();
 
@@ -81,6 +372,12 @@ public class Opus implements IMusicPiece {
       map.put(t, toPut);
     }
 
+    event.end();
+    if (event.shouldCommit()) {
+      event.beats = totalTime + 1;
+      event.sounds = sounds.size();
+      event.commit();
+    }
     return map;
   }
 
@@ -91,89 +388,299 @@ public class Opus implements IMusicPiece {
 
   @Override
   public double getTotalDuration() {
-    double currMax = 0;
-    for (IMusicNote note : this.notes) {
-      if (note.getEndLocation() > currMax) {
-        currMax = note.getEndLocation();
+    int currMax = this.lastEnd;
+    if (currMax < 0) {
+      currMax = 0;
+      for (IMusicNote note : this.notes) {
+        if (note != null && note.getEndLocation() > currMax) {
+          currMax = note.getEndLocation();
+        }
       }
+      this.lastEnd = currMax;
     }
     return currMax;
   }
 
   @Override
   public void addNote(IMusicNote note) {
+    ownNotes();
+    sortedChanged(null, note);
+    if (this.lastEnd >= 0) {
+      this.lastEnd = Math.max(this.lastEnd, note.getEndLocation());
+    }
+    if (this.longestSpan >= 0) {
+      this.longestSpan = Math.max(this.longestSpan,
+              note.getEndLocation() - note.getStartLocation());
+    }
     this.notes.add(note);
+    this.slotsById.put(note.getId(), this.notes.size() - 1);
   }
 
   @Override
   public void delete(IMusicNote note) throws IllegalArgumentException {
-    if (!(this.notes.contains(note))) {
+    ownNotes();
+    int currIdx = slotOf(note);
+    if (currIdx < 0) {
       throw new IllegalArgumentException("The Note specified to edit does not exist.");
     }
-    this.notes.remove(note);
+    fillSlot(currIdx, null);
   }
 
   @Override
   public void replace(IMusicNote currentNote, IMusicNote newNote) throws IllegalArgumentException {
-    if (!(this.notes.contains(currentNote))) {
+    ownNotes();
+    int currIdx = slotOf(currentNote);
+    if (currIdx < 0) {
       throw new IllegalArgumentException("The Note specified to edit does not exist.");
     }
+    fillSlot(currIdx, newNote);
+  }
 
-    int currIdx = this.notes.indexOf(currentNote);
-    this.notes.remove(currIdx);
-    this.notes.add(currIdx, newNote);
+  @Override
+  public void applyEdits(List<NoteEdit<IMusicNote>> edits) throws IllegalArgumentException {
+    // Works on copies of the notes and their ID index, so that nothing changes if an edit turns
+    // out to be invalid.
+    ownNotes();
+    Batch batch = new Batch(this.notes, this.slotsById);
+    // The notes each edit takes out and puts in, or null where it does not.
+    List<IMusicNote> taken = new ArrayList<>(edits.size());
+    List<IMusicNote> put = new ArrayList<>(edits.size());
+
+    for (NoteEdit<IMusicNote> edit : edits) {
+      switch (edit.getKind()) {
+        case WRITE:
+          batch.write(edit.getNote());
+          taken.add(null);
+          put.add(edit.getNote());
+          break;
+        case REMOVE:
+          taken.add(batch.fill(batch.find(edit.getNote()), null));
+          put.add(null);
+          break;
+        case REPLACE:
+          taken.add(batch.fill(batch.find(edit.getNote()), edit.getReplacement()));
+          put.add(edit.getReplacement());
+          break;
+        default:
+          throw new IllegalArgumentException("Unsupported edit: " + edit.getKind());
+      }
+    }
+
+    this.notes = withoutTombstones(batch.work);
+    reindex();
+    this.lastEnd = -1;
+    this.longestSpan = -1;
+    for (int i = 0; i < taken.size(); i += 1) {
+      sortedChanged(taken.get(i), put.get(i));
+    }
+  }
+
+  /**
+   * Represents the notes of an Opus being edited as one batch: copies of its slots and of its ID
+   * index, so that nothing changes if an edit turns out to be invalid. A note that is not itself
+   * among the notes is matched through an index of their fields, which is only built the first
+   * time such a note has to be found.
+   */
+  private static final class Batch {
+    private final List<IMusicNote> work;
+    private final Map<Long, Integer> ids;
+    // The slots holding the notes with each set of fields, or null until first needed.
+    private Map<List<Integer>, TreeSet<Integer>> byFields;
+
+    private Batch(List<IMusicNote> notes, Map<Long, Integer> slotsById) {
+      this.work = new ArrayList<>(notes);
+      this.ids = new HashMap<>(slotsById);
+    }
+
+    /**
+     * Adds the given note in a new slot.
+     *
+     * @param note the note to add.
+     */
+    private void write(IMusicNote note) {
+      this.work.add(null);
+      fill(this.work.size() - 1, note);
+    }
+
+    /**
+     * Locates the slot holding the given note, as slotOf would for a single edit.
+     *
+     * @param note the note to locate.
+     * @return the index of the slot holding the note.
+     * @throws IllegalArgumentException if no slot holds the note.
+     */
+    private int find(IMusicNote note) throws IllegalArgumentException {
+      Integer slot = this.ids.get(note.getId());
+      if (slot != null && this.work.get(slot) == note) {
+        return slot;
+      }
+      if (this.byFields == null) {
+        this.byFields = new HashMap<>();
+        for (int i = 0; i < this.work.size(); i += 1) {
+          if (this.work.get(i) != null) {
+            slotsLike(this.work.get(i)).add(i);
+          }
+        }
+      }
+      TreeSet<Integer> slots = this.byFields.get(fieldsOf(note));
+      if (slots == null || slots.isEmpty()) {
+        throw new IllegalArgumentException("The Note specified to edit does not exist.");
+      }
+      return slots.first();
+    }
+
+    /**
+     * Puts the given note into the given slot, keeping both indexes up to date.
+     *
+     * @param slot the index of the slot.
+     * @param note the note to put into the slot, or null to leave a tombstone.
+     * @return the note that was in the slot, or null if there was none.
+     */
+    private IMusicNote fill(int slot, IMusicNote note) {
+      IMusicNote previous = this.work.set(slot, note);
+      if (previous != null) {
+        Integer indexed = this.ids.get(previous.getId());
+        if (indexed != null && indexed == slot) {
+          this.ids.remove(previous.getId());
+        }
+        if (this.byFields != null) {
+          slotsLike(previous).remove(slot);
+        }
+      }
+      if (note != null) {
+        this.ids.put(note.getId(), slot);
+        if (this.byFields != null) {
+          slotsLike(note).add(slot);
+        }
+      }
+      return previous;
+    }
+
+    /**
+     * Provides the slots holding notes with the same fields as the given note.
+     *
+     * @param note the note.
+     * @return the slots, in order, which may be changed.
+     */
+    private TreeSet<Integer> slotsLike(IMusicNote note) {
+      return this.byFields.computeIfAbsent(fieldsOf(note), fields -> new TreeSet<>());
+    }
   }
 
   @Override
-  public void joinPieceIntegrated(IMusicPiece other) throws IllegalArgumentException {
-    if (other.getMeasureDuration() != this.measureDuration) {
-      throw new IllegalArgumentException("The provided piece has a different time signature than " +
-              "the piece to which you are trying to join, must be same time signature.");
+  public List<IMusicNote> joinPieceIntegrated(IMusicPiece other)
+          throws IllegalArgumentException {
+    checkMeasureDuration(other);
+    // The notes are copied so that each added note can be told apart by its ID, even when the
+    // other piece shares notes with this one.
+    List<IMusicNote> joined = new ArrayList<>();
+    for (IMusicNote note : other.slice(Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+      joined.add(note.shiftedBy(0));
     }
-    this.notes.addAll(other.getNotes());
+    IMusicNote[] merged = mergeByStart(Arrays.asList(
+            slice(Integer.MIN_VALUE, Integer.MAX_VALUE), joined));
+    this.notes = new ArrayList<>(Arrays.asList(merged));
+    reindex();
+    this.lastEnd = -1;
+    this.longestSpan = -1;
+    this.byStart = Collections.unmodifiableList(Arrays.asList(merged));
+    return joined;
   }
 
   @Override
-  public void joinPiecePlayAfter(IMusicPiece other) throws IllegalArgumentException {
+  public List<IMusicNote> joinPiecePlayAfter(IMusicPiece other) throws IllegalArgumentException {
+    checkMeasureDuration(other);
+
+    // Every moved note starts at or after the end of this piece, so appending them in order of
+    // starting beat needs no merge.
+    int songLen = (int) getTotalDuration();
+    List<IMusicNote> joined = new ArrayList<>();
+    for (IMusicNote note : other.slice(Integer.MIN_VALUE, Integer.MAX_VALUE)) {
+      IMusicNote moved = note.shiftedBy(songLen);
+      joined.add(moved);
+      addNote(moved);
+    }
+    return joined;
+  }
+
+  /**
+   * Ensures the given piece has the same time signature as this one.
+   *
+   * @param other the piece to check.
+   * @throws IllegalArgumentException if the time signatures differ.
+   */
+  private void checkMeasureDuration(IMusicPiece other) throws IllegalArgumentException {
     if (other.getMeasureDuration() != this.measureDuration) {
       throw new IllegalArgumentException("The provided piece has a different time signature than " +
               "the piece to which you are trying to join, must be same time signature.");
     }
+  }
 
-    double songLen = getTotalDuration();
-    for (IMusicNote note : other.getNotes()) {
-      note.changeLocations(songLen);
+  /**
+   * Merges runs of notes that are each sorted by starting beat into one sorted array, in a single
+   * pass. Notes starting on the same beat keep the order of their runs.
+   *
+   * @param runs the sorted runs to merge.
+   * @return the merged notes.
+   */
+  private static IMusicNote[] mergeByStart(List<List<IMusicNote>> runs) {
+    int total = 0;
+    for (List<IMusicNote> run : runs) {
+      total += run.size();
+    }
+    IMusicNote[] merged = new IMusicNote[total];
+
+    // Each cursor is {run, position}, ordered by the start of the note it points at.
+    PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+      int byStart = Integer.compare(runs.get(a[0]).get(a[1]).getStartLocation(),
+              runs.get(b[0]).get(b[1]).getStartLocation());
+      return byStart != 0 ? byStart : Integer.compare(a[0], b[0]);
+    });
+    for (int r = 0; r < runs.size(); r += 1) {
+      if (!runs.get(r).isEmpty()) {
+        cursors.add(new int[]{r, 0});
+      }
     }
 
-    this.notes.addAll(other.getNotes());
+    int out = 0;
+    while (!cursors.isEmpty()) {
+      int[] cursor = cursors.poll();
+      List<IMusicNote> run = runs.get(cursor[0]);
+      merged[out] = run.get(cursor[1]);
+      out += 1;
+      cursor[1] += 1;
+      if (cursor[1] < run.size()) {
+        cursors.add(cursor);
+      }
+    }
+    return merged;
   }
 
   @Override
   public IMusicNote lowestNote() {
-    return Collections.min(this.notes, new NoteSoundComparator());
+    return Collections.min(live(), new NoteSoundComparator());
   }
 
   @Override
   public IMusicNote highestNote() {
-    return Collections.max(this.notes, new NoteSoundComparator());
+    return Collections.max(live(), new NoteSoundComparator());
   }
 
   @Override
   public IMusicNote getNoteAt(SoundPair sound, int beat) {
-    IMusicNote output = new RestNote(sound.getPitch(), sound.getOctave());
     for (IMusicNote note : this.notes) {
-      if (note.getPitch().equals(sound.getPitch()) && note.getOctave() == sound.getOctave() &&
-              (beat >= note.getStartLocation()) && (beat <= note.getEndLocation())) {
-        output = note;
-        break;
+      if (note != null && note.getPitch().equals(sound.getPitch())
+              && note.getOctave() == sound.getOctave()
+              && (beat >= note.getStartLocation()) && (beat <= note.getEndLocation())) {
+        return note;
       }
     }
-    return output;
+    return RestNote.of(sound);
   }
 
   @Override
   public List<IMusicNote> sortByLocation(List<IMusicNote> collection) {
-    Collections.sort(collection, new NoteLocationComparator());
+    NoteLocationSorter.sort(collection);
     return collection;
   }
 
@@ -182,10 +689,14 @@ public class Opus implements IMusicPiece {
     int totalTime = (int) Math.ceil(getTotalDuration());
     ConsolePrinter viewer = new ConsolePrinter(lowestNote(), highestNote(),
             collection, totalTime);
-    String header = viewer.headerLine();
-    String rest = viewer.subsequentLines();
-
-    return header + "\n" + rest;
+    StringBuilder out = new StringBuilder();
+    try {
+      viewer.render(out);
+    } catch (IOException e) {
+      // A StringBuilder is never unable to be appended to.
+      throw new IllegalStateException(e.getMessage());
+    }
+    return out.toString();
   }
 
   @Override
@@ -205,7 +716,7 @@ public class Opus implements IMusicPiece {
     if (tempo != opus.tempo) {
       return false;
     }
-    return notes != null ? notes.equals(opus.notes) : opus.notes == null;
+    return live().equals(opus.live());
   }
 
   @Override
@@ -214,7 +725,7 @@ public class Opus implements IMusicPiece {
     long temp;
     temp = Double.doubleToLongBits(measureDuration);
     result = (int) (temp ^ (temp >>> 32));
-    result = 31 * result + (notes != null ? notes.hashCode() : 0);
+    result = 31 * result + live().hashCode();
     result = 31 * result + tempo;
     return result;
   }
@@ -1,12 +1,11 @@
 package cs3500.music.view;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
+import cs3500.music.model.ConsolePrinter;
 import cs3500.music.model.IMusicNote;
 import cs3500.music.model.IMusicPiece;
 import cs3500.music.model.IReadOnlyModel;
@@ -17,10 +16,12 @@ import cs3500.music.model.SoundPair;
  * Represents printer for console, calculates the String representation for the console.
  */
 public class PrinterForConsole {
-  private final IMusicNote lowestSound;
-  private final IMusicNote highestSound;
+  private static final PitchType[] PITCHES = PitchType.values();
   private final List<IMusicNote> notes;
-  private final int totalDuration;
+  private final int fromBeat;
+  private final int toBeat;
+  private final int lowMidi;
+  private final int highMidi;
 
   /**
    * Takes a model, and grabs the requisite information to make a PrinterForConsole Object.
@@ -29,160 +30,122 @@ public class PrinterForConsole {
    * @param model the model whose data to print to the console.
    */
   public PrinterForConsole(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
-    this.lowestSound = model.getLowestNote(model.getPiece());
-    this.highestSound = model.getHighestNote(model.getPiece());
-    this.notes = model.getPiece().getNotes();
-    this.totalDuration = (int) Math.ceil(model.getTotalDuration());
-  }
-
-  /**
-   * Returns tis music state as a console view.
-   * @return music state
-   */
-  public String getMusicState() {
-    String header = this.headerLine();
-    String rest = this.subsequentLines();
-    return header + "\n" + rest;
+    // Already in order of starting beats, so the notes are not copied to be rendered.
+    this.notes = model.getNotesBetween(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    this.fromBeat = 0;
+    this.toBeat = (int) Math.ceil(model.getTotalDuration());
+
+    // The lowest and highest sounds are found in one pass over the notes, without copying the
+    // piece. A piece with no notes has no sounds to print.
+    int lowest = Integer.MAX_VALUE;
+    int highest = Integer.MIN_VALUE;
+    for (IMusicNote note : this.notes) {
+      lowest = Math.min(lowest, note.midiNumber());
+      highest = Math.max(highest, note.midiNumber());
+    }
+    this.lowMidi = this.notes.isEmpty() ? 0 : lowest;
+    this.highMidi = this.notes.isEmpty() ? -1 : highest;
   }
 
   /**
-   * Computes the lines of output for the console visualization for this song, not including the
-   * pitch-octave headers line.
-   *
-   * @return the lines of console output for the notes in this song.
+   * Takes a model, and grabs only the notes playing within the given window of it to make a
+   * PrinterForConsole Object, so that the cost of printing depends on the size of the window
+   * rather than the length of the song.
+   * @param model the model whose data to print to the console.
+   * @param fromBeat the first beat to print.
+   * @param toBeat the last beat to print.
+   * @param lowMidi the Midi Number of the lowest sound to print, or -1 for the lowest sound
+   *                playing within the beats.
+   * @param highMidi the Midi Number of the highest sound to print, or -1 for the highest sound
+   *                 playing within the beats.
+   * @throws IllegalArgumentException if the window is empty, or starts before the first beat.
    */
-  private String subsequentLines() {
-    SortedMap<SoundPair, List<IMusicNote>> notesMap = mapNotes(this.notes);
-    int totalTime = this.totalDuration;
-    StringBuilder lines = new StringBuilder("");
-
-    //Computes the line to be printed at each beat in the piece
-    for (int t = 0; t <= totalTime; t += 1) {
-      StringBuilder thisLine = new StringBuilder(timeColumn(t, totalTime));
-      for (Map.Entry<SoundPair, List<IMusicNote>> item : notesMap.entrySet()) {
-        if (item.getValue().size() == 0) {
-          thisLine.append( "     "); // If there are no notes playing this sound
-        } else if (item.getValue().size() == 1) {
-          // If only one note plays this sound
-          thisLine.append(item.getValue().get(0).consoleString(t));
-        } else {
-          // If multiple notes play this sound
-          thisLine.append(outputAtTimeAndSound(t, item.getValue()));
-        }
+  public PrinterForConsole(IReadOnlyModel<IMusicNote, IMusicPiece> model, int fromBeat,
+                           int toBeat, int lowMidi, int highMidi) throws IllegalArgumentException {
+    if (fromBeat < 0 || toBeat < fromBeat) {
+      throw new IllegalArgumentException("Invalid range of beats specified!");
+    }
+    if (lowMidi >= 0 && highMidi >= 0 && highMidi < lowMidi) {
+      throw new IllegalArgumentException("Invalid range of sounds specified!");
+    }
+    this.notes = model.getNotesPlaying(fromBeat, toBeat);
+    this.fromBeat = fromBeat;
+    this.toBeat = toBeat;
+
+    int lowest = Integer.MAX_VALUE;
+    int highest = Integer.MIN_VALUE;
+    for (IMusicNote note : this.notes) {
+      lowest = Math.min(lowest, note.midiNumber());
+      highest = Math.max(highest, note.midiNumber());
+    }
+    int low = lowMidi >= 0 ? lowMidi : (this.notes.isEmpty() ? 0 : lowest);
+    int high = highMidi >= 0 ? highMidi : (this.notes.isEmpty() ? low - 1 : highest);
+    // A bound found from the notes can lie past the other bound, when that one is given and no
+    // note within the beats is inside it. The window then holds no sounds, as for no notes.
+    if (high < low) {
+      if (lowMidi < 0) {
+        low = high + 1;
+      } else {
+        high = low - 1;
       }
-      lines.append(thisLine + "\n");
     }
-    return lines.toString();
+    this.lowMidi = low;
+    this.highMidi = high;
   }
 
   /**
-   * Determines which note's console String to output out of the given list of notes, based on the
-   * given point in time.
-   *
-   * @param time      the current beat at which the console output is to be determined.
-   * @param workNotes the list of notes from which to derive the console output.
-   * @return the console String output based on the point in time.
+   * Returns tis music state as a console view.
+   * @return music state
    */
-  private String outputAtTimeAndSound(int time, List<IMusicNote> workNotes) {
-    List<String> consoleStrs = new ArrayList<>();
-    for (IMusicNote note : workNotes) {
-      consoleStrs.add(note.consoleString(time));
-    }
-
-    if (!(consoleStrs.contains("  X  ") || consoleStrs.contains("  |  "))) {
-      return "     "; // If there is no visualization to output at the given beat
-    } else if (consoleStrs.contains("  X  ")) {
-      return "  X  "; // If a new note begins at the given beat
-    } else {
-      return "  |  "; // If there is a visualization to output, but no note begins at this beat.
+  public String getMusicState() {
+    StringBuilder out = new StringBuilder();
+    try {
+      render(out);
+    } catch (IOException e) {
+      // A StringBuilder is never unable to be appended to.
+      throw new IllegalStateException(e.getMessage());
     }
+    return out.toString();
   }
 
   /**
-   * Computes the time column String output for the given time in the song.
-   *
-   * @param currTime  the current beat number
-   * @param totalTime the total duration of the song
-   * @return the time column String output
+   * Writes this music state as a console view to the given output, one line at a time, without
+   * holding the whole view in memory.
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
    */
-  private String timeColumn(int currTime, int totalTime) {
-    int colWidth = String.valueOf(totalTime).length();
-    int currWidth = String.valueOf(currTime).length();
-
-    String buffer = "";
-    for (int t = 0; t < (colWidth - currWidth); t += 1) {
-      buffer += " ";
-    }
-
-    return buffer + String.valueOf(currTime);
+  public void render(Appendable out) throws IOException {
+    printer().render(out);
   }
 
   /**
-   * Computes a SortedMap that maps all the SoundPairs necessary for viewing the notes in the
-   * given list to the IMusicNotes associated at each SoundPair. If there is no note with the
-   * pitch and sound of a SoundPair, its value is mapped as null.
-   *
-   * @param notesList the list of Notes to place into the map.
-   * @return SortedMap with IMusicNotes mapped to their corresponding SoundPairs.
+   * Writes this music state as a compact console view to the given output, leaving out the
+   * sounds that are never played and collapsing runs of identical lines into one.
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
    */
-  private SortedMap<SoundPair, List<IMusicNote>> mapNotes(List<IMusicNote> notesList) {
-    SortedMap<SoundPair, List<IMusicNote>> notesMap = new TreeMap<>();
-
-    //Computes all the sound pairs necessary for viewing
-    List<SoundPair> soundPairs = soundPairs(this.lowestSound, this.highestSound);
-
-    //Initializes map with all the necessary sound pairs.
-    for (SoundPair pair : soundPairs) {
-      List<IMusicNote> value = new LinkedList<>();
-      notesMap.put(pair, value);
-    }
-
-    //Edits map by placing notes into entries with matching SoundPair keys, overriding the
-    //initial values.
-    for (IMusicNote note : notesList) {
-      SoundPair key = new SoundPair(note.getPitch(), note.getOctave());
-      notesMap.get(key).add(note);
-    }
-
-    return notesMap;
+  public void renderCompact(Appendable out) throws IOException {
+    printer().renderCompact(out);
   }
 
   /**
-   * Computes a line of the note headings to run in header line of the console visualization.
-   *
-   * @return the header line for the console visualization, not including the time column.
+   * Writes this music state as a console view to the given output, as above, rendering blocks of
+   * lines in parallel on the given pool.
+   * @param out the output to write to.
+   * @param pool the pool to render on.
+   * @throws IOException if the output cannot be written to.
    */
-  private String headerLine() {
-    List<SoundPair> soundPairs = soundPairs(this.lowestSound, this.highestSound);
-    StringBuilder headings = new StringBuilder(initFirstColumn(this.totalDuration));
-    for (SoundPair pair : soundPairs) {
-      String toAdd;
-      String pitchString = pair.getPitch().toString();
-      String octaveString = String.valueOf(pair.getOctave());
-      if (pitchString.contains("#")) {
-        toAdd = " " + pitchString + octaveString + " ";
-      } else {
-        toAdd = "  " + pitchString + octaveString + " ";
-      }
-      headings.append(toAdd);
-    }
-    return headings.toString();
+  public void renderParallel(Appendable out, ForkJoinPool pool) throws IOException {
+    printer().renderParallel(out, pool);
   }
 
   /**
-   * Computes the size of the first column in the console visualization, under which the time
-   * labels will be printed.
-   *
-   * @return a String of spaces whose width is that which the first column will be.
+   * Creates the printer for this music state, with the beat numbers right-aligned.
+   * @return the printer.
    */
-  private String initFirstColumn(int totalDuration) {
-    int totalTime = (int) Math.ceil(totalDuration);
-
-    String buffer = "";
-    for (int i = 0; i < String.valueOf(totalTime).length(); i += 1) {
-      buffer += " ";
-    }
-    return buffer;
+  private ConsolePrinter printer() {
+    return new ConsolePrinter(this.notes, this.fromBeat, this.toBeat, this.lowMidi, this.highMidi,
+            true);
   }
 
   /**
@@ -198,7 +161,7 @@ public class PrinterForConsole {
 
     firstToLast:
     for (int oct = low.getOctave(); oct <= high.getOctave(); oct += 1) {
-      for (PitchType pitch : PitchType.values()) {
+      for (PitchType pitch : PITCHES) {
         boolean tooEarly = (oct == low.getOctave()) && (pitch.compareTo(low.getPitch()) < 0);
         boolean tooLate = (oct == high.getOctave()) && (pitch.compareTo(high.getPitch()) > 0);
 
@@ -207,7 +170,7 @@ public class PrinterForConsole {
         } else if (tooLate) {
           break firstToLast;
         } else {
-          SoundPair toAdd = new SoundPair(pitch, oct);
+          SoundPair toAdd = SoundPair.of(pitch, oct);
           out.add(toAdd);
         }
       }
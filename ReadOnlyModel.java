@@ -27,6 +27,16 @@ public class ReadOnlyModel implements IReadOnlyModel<IMusicNote, IMusicPiece> {
     return this.inputModel.getPieceAfter(start);
   }
 
+  @Override
+  public List<IMusicNote> getNotesBetween(int fromBeat, int toBeat) {
+    return this.inputModel.getNotesBetween(fromBeat, toBeat);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesPlaying(int fromBeat, int toBeat) {
+    return this.inputModel.getNotesPlaying(fromBeat, toBeat);
+  }
+
   @Override
   public Map<Integer, List<IMusicNote>> getPieceByTime() {
     return this.inputModel.getPieceByTime();
@@ -52,6 +62,11 @@ public class ReadOnlyModel implements IReadOnlyModel<IMusicNote, IMusicPiece> {
     return this.inputModel.getTempo();
   }
 
+  @Override
+  public int getMeasureLength() {
+    return this.inputModel.getMeasureLength();
+  }
+
   @Override
   public int getTotalDuration() {
     return this.inputModel.getTotalDuration();
@@ -67,4 +82,14 @@ public class ReadOnlyModel implements IReadOnlyModel<IMusicNote, IMusicPiece> {
     return inputModel.getRepeats();
   }
 
+  @Override
+  public void addListener(IModelListener listener) {
+    this.inputModel.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(IModelListener listener) {
+    this.inputModel.removeListener(listener);
+  }
+
 }
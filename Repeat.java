@@ -70,22 +70,15 @@ public class Repeat {
     }
     if (other instanceof Repeat) {
       Repeat r2 = (Repeat) other;
-      if (r2.getStartBeat() == startBeat) {
-        if (r2.getEndings().size() == endings.size()) {
-          endings.containsAll(r2.getEndings());
-        } else {
-          return false;
-        }
-      } else {
-        return false;
-      }
+      // The endings of both repeats are kept sorted, so they can be compared in order.
+      return r2.startBeat == startBeat && r2.endings.equals(endings);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return startBeat * 17;
+    return startBeat * 17 + endings.hashCode();
   }
 
 }
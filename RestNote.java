@@ -4,8 +4,20 @@ package cs3500.music.model;
  * Represents a Musical note with a pitch and octave.
  */
 public class RestNote implements IMusicNote {
+  // The one RestNote of every sound a note can have, indexed by its Midi Number. A RestNote cannot
+  // be changed, so every lack of a note at a sound can be the same object.
+  private static final RestNote[] BY_MIDI = new RestNote[128];
+
+  static {
+    for (int midi = 0; midi < BY_MIDI.length; midi += 1) {
+      SoundPair sound = SoundPair.of(midi);
+      BY_MIDI[midi] = new RestNote(sound.getPitch(), sound.getOctave());
+    }
+  }
+
   private final PitchType pitch;
   private final int octave;
+  private final int midi;
 
   /**
    * Constructs a new RestNote object with a pitch and an octave.
@@ -24,6 +36,28 @@ public class RestNote implements IMusicNote {
 
     this.pitch = pitch;
     this.octave = octave;
+    this.midi = midi;
+  }
+
+  /**
+   * Provides the shared RestNote of the given sound.
+   * @param sound the sound that no note is playing.
+   * @return the RestNote of that sound.
+   * @throws IllegalArgumentException if no note can have that sound.
+   */
+  public static RestNote of(SoundPair sound) throws IllegalArgumentException {
+    int midi = sound.midiNumber();
+    if (midi < 0 || midi >= BY_MIDI.length) {
+      // Throws the same exception as making the RestNote would.
+      return new RestNote(sound.getPitch(), sound.getOctave());
+    }
+    return BY_MIDI[midi];
+  }
+
+  @Override
+  public long getId() {
+    // A RestNote is the lack of a note, so it never has an identity of its own.
+    return -1;
   }
 
   @Override
@@ -53,14 +87,12 @@ public class RestNote implements IMusicNote {
 
   @Override
   public SoundPair getSoundPair() {
-    return new SoundPair(this.pitch, this.octave);
+    return SoundPair.of(this.midi);
   }
 
   @Override
   public int midiNumber() {
-    IMusicNote checker = new RestNote(PitchType.C, this.octave);
-    int midi = this.pitch.ordinal() + ((1 + this.octave) * 12);
-    return midi;
+    return this.midi;
   }
 
   @Override
@@ -74,15 +106,7 @@ public class RestNote implements IMusicNote {
   }
 
   @Override
-  public void setVolume(int newVolume) {
-    if (newVolume < 0 || newVolume > 127) {
-      throw new IllegalArgumentException("Volume value must be between 0 and 127, inclusive.");
-    }
-    //Do nothing, because a RestNote has no volume, thus changing it will have no effect.
-  }
-
-  @Override
-  public void changeLocations(double delta) throws IllegalArgumentException {
+  public IMusicNote shiftedBy(int beats) throws IllegalArgumentException {
     throw new IllegalArgumentException("Cannot move a RestNote since it is, in practice, the lack" +
             " of a note.");
   }
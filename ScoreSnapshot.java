@@ -0,0 +1,340 @@
+package cs3500.music.view;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.ModelChange;
+import cs3500.music.model.NoteLocationSorter;
+
+/**
+ * Represents an immutable copy of the parts of a piece that the score needs for drawing. The
+ * notes are kept as primitive arrays sorted by starting beat, so that the notes within a range
+ * of beats can be found without scanning the whole piece, and so that a snapshot can be safely
+ * handed to rendering threads while the model keeps changing.
+ *
+ * <p>The sound lanes run from the lowest to the highest sound among the notes, and the total
+ * duration is the last beat on which a note ends, just as the model computes them. A snapshot can
+ * be patched with the changes made to the model since it was taken, without reading the model
+ * again.</p>
+ */
+public final class ScoreSnapshot {
+  // Orders {start, end, midi} entries as the arrays are ordered.
+  private static final Comparator<int[]> BY_LOCATION = Comparator.<int[]>comparingInt(e -> e[0])
+          .thenComparingInt(e -> e[1]).thenComparingInt(e -> e[2]);
+
+  private final int[] starts;
+  private final int[] ends;
+  private final int[] midis;
+  private final int maxSpan;
+  private final int lowestMidi;
+  private final int laneCount;
+  private final double measureDuration;
+  private final int totalDuration;
+  private DensityPyramid pyramid;
+
+  /**
+   * Constructs a new ScoreSnapshot from the given notes.
+   *
+   * @param notes           the notes of the piece.
+   * @param measureDuration the number of beats in a measure.
+   */
+  public ScoreSnapshot(List<IMusicNote> notes, double measureDuration) {
+    this(columnsOf(notes), measureDuration);
+  }
+
+  /**
+   * Constructs a new ScoreSnapshot from columns of notes already sorted by location.
+   *
+   * @param columns         the starting beats, ending beats and Midi Numbers of the notes.
+   * @param measureDuration the number of beats in a measure.
+   */
+  private ScoreSnapshot(int[][] columns, double measureDuration) {
+    this.starts = columns[0];
+    this.ends = columns[1];
+    this.midis = columns[2];
+    this.measureDuration = measureDuration;
+
+    int longest = 0;
+    int lowest = Integer.MAX_VALUE;
+    int highest = -1;
+    int lastEnd = 0;
+    for (int i = 0; i < this.starts.length; i += 1) {
+      longest = Math.max(longest, ends[i] - starts[i]);
+      lowest = Math.min(lowest, midis[i]);
+      highest = Math.max(highest, midis[i]);
+      lastEnd = Math.max(lastEnd, ends[i]);
+    }
+    this.maxSpan = longest;
+    this.lowestMidi = highest < 0 ? 0 : lowest;
+    this.laneCount = highest < 0 ? 0 : highest - lowest + 1;
+    this.totalDuration = lastEnd;
+  }
+
+  /**
+   * Computes the columns of the given notes, sorted by location.
+   *
+   * @param notes the notes.
+   * @return the starting beats, ending beats and Midi Numbers of the notes.
+   */
+  private static int[][] columnsOf(List<IMusicNote> notes) {
+    List<IMusicNote> sorted = new ArrayList<>(notes);
+    NoteLocationSorter.sort(sorted);
+    int[][] columns = new int[3][sorted.size()];
+    for (int i = 0; i < sorted.size(); i += 1) {
+      IMusicNote note = sorted.get(i);
+      columns[0][i] = note.getStartLocation();
+      columns[1][i] = note.getEndLocation();
+      columns[2][i] = note.midiNumber();
+    }
+    return columns;
+  }
+
+  /**
+   * Computes the snapshot that results from making the given changes to the piece this snapshot
+   * was taken of. Only the changed notes are looked up; the rest are copied across in one merge
+   * pass, so patching costs a copy of the arrays rather than a sort of the whole piece. Changes
+   * that do not affect notes, such as to the tempo or the repeats, are ignored.
+   *
+   * @param changes the changes made since this snapshot was taken, in order.
+   * @return the patched snapshot, or this one if no note changed.
+   */
+  public ScoreSnapshot patched(List<ModelChange> changes) {
+    boolean[] gone = new boolean[this.starts.length];
+    int goneCount = 0;
+    List<int[]> added = new ArrayList<>();
+    for (ModelChange change : changes) {
+      switch (change.getKind()) {
+        case NOTE_ADDED:
+          added.add(entryOf(change.getNote()));
+          break;
+        case NOTE_REMOVED:
+          goneCount += remove(change.getNote(), gone, added);
+          break;
+        case NOTE_REPLACED:
+          goneCount += remove(change.getNote(), gone, added);
+          added.add(entryOf(change.getReplacement()));
+          break;
+        case PIECE_COMBINED:
+          for (IMusicNote note : change.getJoinedNotes()) {
+            added.add(entryOf(note));
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    if (goneCount == 0 && added.isEmpty()) {
+      return this;
+    }
+
+    added.sort(BY_LOCATION);
+    int size = this.starts.length - goneCount + added.size();
+    int[] newStarts = new int[size];
+    int[] newEnds = new int[size];
+    int[] newMidis = new int[size];
+    int i = 0;
+    int a = 0;
+    for (int out = 0; out < size; out += 1) {
+      while (i < this.starts.length && gone[i]) {
+        i += 1;
+      }
+      if (a < added.size() && (i == this.starts.length || compareTo(added.get(a), i) < 0)) {
+        int[] entry = added.get(a);
+        newStarts[out] = entry[0];
+        newEnds[out] = entry[1];
+        newMidis[out] = entry[2];
+        a += 1;
+      } else {
+        newStarts[out] = this.starts[i];
+        newEnds[out] = this.ends[i];
+        newMidis[out] = this.midis[i];
+        i += 1;
+      }
+    }
+    return new ScoreSnapshot(new int[][]{newStarts, newEnds, newMidis}, this.measureDuration);
+  }
+
+  /**
+   * Marks the given note as removed, either from the notes added by the same patch or from the
+   * notes of this snapshot.
+   *
+   * @param note  the note removed.
+   * @param gone  which notes of this snapshot have been removed so far.
+   * @param added the notes added by the patch so far.
+   * @return 1 if a note of this snapshot was marked as removed, and 0 otherwise.
+   */
+  private int remove(IMusicNote note, boolean[] gone, List<int[]> added) {
+    int[] entry = entryOf(note);
+    for (int k = added.size() - 1; k >= 0; k -= 1) {
+      if (BY_LOCATION.compare(added.get(k), entry) == 0) {
+        added.remove(k);
+        return 0;
+      }
+    }
+    int lo = 0;
+    int hi = this.starts.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.starts[mid] < entry[0]) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    for (int k = lo; k < this.starts.length && this.starts[k] == entry[0]; k += 1) {
+      if (!gone[k] && this.ends[k] == entry[1] && this.midis[k] == entry[2]) {
+        gone[k] = true;
+        return 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Computes the {start, end, midi} entry of the given note.
+   *
+   * @param note the note.
+   * @return the entry.
+   */
+  private static int[] entryOf(IMusicNote note) {
+    return new int[]{note.getStartLocation(), note.getEndLocation(), note.midiNumber()};
+  }
+
+  /**
+   * Compares the given {start, end, midi} entry with the note at the given index, in the order the
+   * notes are sorted in.
+   *
+   * @param entry the entry.
+   * @param i     the index of the note, in order of starting beat.
+   * @return a negative number, zero, or a positive number as the entry comes before, with, or
+   *         after the note.
+   */
+  private int compareTo(int[] entry, int i) {
+    int byStart = Integer.compare(entry[0], this.starts[i]);
+    if (byStart != 0) {
+      return byStart;
+    }
+    int byEnd = Integer.compare(entry[1], this.ends[i]);
+    return byEnd != 0 ? byEnd : Integer.compare(entry[2], this.midis[i]);
+  }
+
+  /**
+   * Provides the length, in beats, of the longest note in this snapshot.
+   *
+   * @return the longest span from the start of a note to its end.
+   */
+  public int getMaxSpan() {
+    return this.maxSpan;
+  }
+
+  /**
+   * Provides the number of notes in this snapshot.
+   *
+   * @return the number of notes.
+   */
+  public int size() {
+    return this.starts.length;
+  }
+
+  /**
+   * Provides the starting beat of the note at the given index.
+   *
+   * @param i the index of the note, in order of starting beat.
+   * @return the starting beat.
+   */
+  public int startOf(int i) {
+    return this.starts[i];
+  }
+
+  /**
+   * Provides the ending beat of the note at the given index.
+   *
+   * @param i the index of the note, in order of starting beat.
+   * @return the ending beat.
+   */
+  public int endOf(int i) {
+    return this.ends[i];
+  }
+
+  /**
+   * Provides the sound lane of the note at the given index, where 0 is the lowest sound.
+   *
+   * @param i the index of the note, in order of starting beat.
+   * @return the lane.
+   */
+  public int laneOf(int i) {
+    return this.midis[i] - this.lowestMidi;
+  }
+
+  /**
+   * Computes the index of the first note that may still be sounding at the given beat. Every note
+   * before the returned index ends before the beat.
+   *
+   * @param beat the beat to search from.
+   * @return the index of the first note that may sound on or after the beat.
+   */
+  public int firstIndexSounding(int beat) {
+    int lo = 0;
+    int hi = this.starts.length;
+    int from = beat - this.maxSpan;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (this.starts[mid] < from) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Provides the Midi Number of the lowest sound lane.
+   *
+   * @return the Midi Number of lane 0, or 0 if there are no notes.
+   */
+  public int lowestMidi() {
+    return this.lowestMidi;
+  }
+
+  /**
+   * Provides the number of sound lanes.
+   *
+   * @return the number of lanes, or 0 if there are no notes.
+   */
+  public int laneCount() {
+    return this.laneCount;
+  }
+
+  /**
+   * Provides the number of beats in a measure.
+   *
+   * @return the measure duration.
+   */
+  public double getMeasureDuration() {
+    return this.measureDuration;
+  }
+
+  /**
+   * Provides the total duration of the piece, in beats.
+   *
+   * @return the total duration.
+   */
+  public int getTotalDuration() {
+    return this.totalDuration;
+  }
+
+  /**
+   * Provides the density pyramid of this snapshot, building it on first use.
+   *
+   * @return the density pyramid.
+   */
+  public synchronized DensityPyramid pyramid() {
+    if (this.pyramid == null) {
+      this.pyramid = new DensityPyramid(this);
+    }
+    return this.pyramid;
+  }
+}
@@ -0,0 +1,609 @@
+package cs3500.music.view;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.swing.SwingUtilities;
+
+import cs3500.music.model.ModelChange;
+
+/**
+ * Rasterizes the score into fixed-width image tiles on a pool of worker threads. Tiles are
+ * rendered from an immutable ScoreSnapshot and published atomically: a tile is only handed to the
+ * Event Dispatch Thread if the snapshot and zoom it was rendered for are still current, or if
+ * nothing the tile shows has changed since, so panning and key handling never wait on note
+ * painting. Until a tile changed by an edit is rendered again, the tile from before the edit can
+ * be drawn in its place.
+ *
+ * <p>New snapshots are built one at a time on a thread of their own, either from scratch or by
+ * patching the current one with the changes made to the model, and are then handed to the Event
+ * Dispatch Thread. The threads of a renderer run until it is disposed of.</p>
+ */
+public class ScoreTileRenderer {
+  static final int TILE_WIDTH = 512;
+  // Tiles are evicted, least recently used first, once they take up more than this many bytes,
+  // though enough of them are always kept to cover a very wide window.
+  private static final long MAX_TILE_BYTES = 48L << 20;
+  private static final int MIN_TILES = 16;
+  private static final double LOD_PIXELS_PER_BEAT = 4;
+  private static final int MIN_BUCKET_WIDTH = 2;
+  private static final int MIN_MEASURE_SPACING = 48;
+  private static final int LABEL_WIDTH = 48;
+  private static final Color[] DENSITY_SHADES = densityShades(16);
+  // The number of patches remembered, through which a tile of a superseded generation is kept.
+  private static final int LOGGED_PATCHES = 64;
+  private static final AtomicLong SERIALS = new AtomicLong();
+
+  private final ExecutorService workers;
+  private final ExecutorService builder;
+  private final int top;
+  private final int beatHeight;
+  private final Font font;
+  private final Runnable onTileReady;
+  private final AtomicReference<Generation> current = new AtomicReference<>();
+  // For each of the latest patched generations, by serial: the serial of the generation it was
+  // patched from, and the first and last beats the patch changed.
+  private final Map<Long, long[]> patches = new LinkedHashMap<Long, long[]>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+      return size() > LOGGED_PATCHES;
+    }
+  };
+
+  /**
+   * Represents the tiles rendered for one snapshot at one zoom level.
+   */
+  private static final class Generation {
+    private final long serial = SERIALS.incrementAndGet();
+    private final ScoreSnapshot snapshot;
+    private final double pixelsPerBeat;
+    // In order from the least to the most recently used.
+    private final LinkedHashMap<Integer, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f,
+            true);
+    // Tiles of earlier generations that changed since, drawn until they are rendered again, and
+    // the serial of the latest generation each could have been rendered for.
+    private final LinkedHashMap<Integer, BufferedImage> stale = new LinkedHashMap<>();
+    private final Map<Integer, Long> staleSerials = new HashMap<>();
+    private long bytes = 0;
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    private Generation(ScoreSnapshot snapshot, double pixelsPerBeat) {
+      this.snapshot = snapshot;
+      this.pixelsPerBeat = pixelsPerBeat;
+    }
+
+    private synchronized BufferedImage get(int index) {
+      return this.tiles.get(index);
+    }
+
+    private synchronized BufferedImage getStale(int index) {
+      return this.stale.get(index);
+    }
+
+    private synchronized void put(int index, BufferedImage tile) {
+      BufferedImage previous = this.tiles.put(index, tile);
+      this.bytes += bytesOf(tile) - (previous == null ? 0 : bytesOf(previous));
+      BufferedImage replaced = this.stale.remove(index);
+      this.staleSerials.remove(index);
+      this.bytes -= replaced == null ? 0 : bytesOf(replaced);
+      evict();
+    }
+
+    private synchronized void putIfAbsent(int index, BufferedImage tile) {
+      if (!this.tiles.containsKey(index)) {
+        put(index, tile);
+      }
+    }
+
+    // Keeps the stale tile that is known to be the newer of the two.
+    private synchronized void putStale(int index, BufferedImage tile, long serial) {
+      Long previousSerial = this.staleSerials.get(index);
+      if (!this.tiles.containsKey(index) && (previousSerial == null || previousSerial < serial)) {
+        this.staleSerials.put(index, serial);
+        BufferedImage previous = this.stale.put(index, tile);
+        this.bytes += bytesOf(tile) - (previous == null ? 0 : bytesOf(previous));
+        evict();
+      }
+    }
+
+    // Stale tiles go first, then the least recently used tiles.
+    private void evict() {
+      Iterator<Map.Entry<Integer, BufferedImage>> eldestStale = this.stale.entrySet().iterator();
+      while (this.bytes > MAX_TILE_BYTES && eldestStale.hasNext()) {
+        Map.Entry<Integer, BufferedImage> entry = eldestStale.next();
+        this.bytes -= bytesOf(entry.getValue());
+        this.staleSerials.remove(entry.getKey());
+        eldestStale.remove();
+      }
+      Iterator<BufferedImage> eldest = this.tiles.values().iterator();
+      while (this.bytes > MAX_TILE_BYTES && this.tiles.size() > MIN_TILES) {
+        this.bytes -= bytesOf(eldest.next());
+        eldest.remove();
+      }
+    }
+
+    private static long bytesOf(BufferedImage tile) {
+      return (long) tile.getWidth() * tile.getHeight() * Integer.BYTES;
+    }
+  }
+
+  /**
+   * Constructs a new ScoreTileRenderer.
+   *
+   * @param top         the y coordinate at which the first sound row begins.
+   * @param beatHeight  the height of a sound row, in pixels.
+   * @param font        the font used for the measure numbers.
+   * @param onTileReady the action run on the Event Dispatch Thread whenever a tile is published.
+   */
+  public ScoreTileRenderer(int top, int beatHeight, Font font, Runnable onTileReady) {
+    this.top = top;
+    this.beatHeight = beatHeight;
+    this.font = font;
+    this.onTileReady = onTileReady;
+    this.workers = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            daemon("score-tile-renderer"));
+    this.builder = Executors.newSingleThreadExecutor(daemon("score-snapshot-builder"));
+  }
+
+  /**
+   * Creates a factory of daemon threads with the given name.
+   *
+   * @param name the name of the threads.
+   * @return the factory.
+   */
+  private static ThreadFactory daemon(String name) {
+    return r -> {
+      Thread t = new Thread(r, name);
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  /**
+   * Sets the first snapshot that tiles are rendered from. Every later snapshot should come from
+   * rebuild or patch, so that they are taken in order.
+   *
+   * @param snapshot      the snapshot.
+   * @param pixelsPerBeat the width of a beat at the current zoom level.
+   */
+  public void setSnapshot(ScoreSnapshot snapshot, double pixelsPerBeat) {
+    this.current.set(new Generation(snapshot, pixelsPerBeat));
+  }
+
+  /**
+   * Changes the zoom level tiles are rendered at, discarding every tile rendered so far.
+   *
+   * @param pixelsPerBeat the width of a beat at the new zoom level.
+   */
+  public void setZoom(double pixelsPerBeat) {
+    this.current.updateAndGet(old -> old == null ? null
+            : new Generation(old.snapshot, pixelsPerBeat));
+  }
+
+  /**
+   * Builds a new snapshot from scratch on the snapshot thread, and then renders tiles from it in
+   * place of every tile of the old one.
+   *
+   * @param build   builds the snapshot.
+   * @param onBuilt the action run on the Event Dispatch Thread with the snapshot once it is used.
+   */
+  public void rebuild(Supplier<ScoreSnapshot> build, Consumer<ScoreSnapshot> onBuilt) {
+    submit(() -> {
+      ScoreSnapshot built = build.get();
+      if (this.current.updateAndGet(old -> old == null ? null
+              : new Generation(built, old.pixelsPerBeat)) != null) {
+        SwingUtilities.invokeLater(() -> onBuilt.accept(built));
+      }
+    });
+  }
+
+  /**
+   * Patches the current snapshot with the given changes on the snapshot thread, and then renders
+   * tiles from the patched one. Tiles of the old snapshot that lie entirely outside the beats the
+   * changes affect are kept, as long as the sound lanes stay the same; the rest are rendered
+   * again straight away, and are drawn as they were until then.
+   *
+   * @param changes   the changes made to the model since the latest snapshot was taken.
+   * @param onPatched the action run on the Event Dispatch Thread with the patched snapshot once
+   *                  it is used.
+   */
+  public void patch(List<ModelChange> changes, Consumer<ScoreSnapshot> onPatched) {
+    submit(() -> {
+      Generation base = this.current.get();
+      if (base == null) {
+        return;
+      }
+      ScoreSnapshot before = base.snapshot;
+      ScoreSnapshot after = before.patched(changes);
+      if (after == before) {
+        return;
+      }
+
+      long from = Long.MAX_VALUE;
+      long to = -1;
+      for (ModelChange change : changes) {
+        if (change.getLowMidi() >= 0) {
+          from = Math.min(from, change.getFromBeat());
+          to = Math.max(to, change.getToBeat());
+        }
+      }
+      // The tiles at the old and new end of the piece are redrawn too, since the lane lines
+      // stop at the end of the piece.
+      if (before.getTotalDuration() != after.getTotalDuration()) {
+        from = Math.min(from, Math.min(before.getTotalDuration(), after.getTotalDuration()));
+        to = Math.max(to, Math.max(before.getTotalDuration(), after.getTotalDuration()) + 1);
+      }
+      boolean sameLanes = before.lowestMidi() == after.lowestMidi()
+              && before.laneCount() == after.laneCount();
+      long fromBeat = from;
+      long toBeat = to;
+      List<Integer> changed = new ArrayList<>();
+
+      Generation next = this.current.updateAndGet(old -> {
+        changed.clear();
+        if (old == null) {
+          return null;
+        }
+        Generation patched = new Generation(after, old.pixelsPerBeat);
+        if (sameLanes && old.snapshot == before) {
+          int tileBeats = tileBeats(old.pixelsPerBeat);
+          synchronized (old) {
+            for (Map.Entry<Integer, BufferedImage> entry : old.tiles.entrySet()) {
+              long first = (long) entry.getKey() * tileBeats;
+              long last = first + tileBeats - 1;
+              if (last < fromBeat || first > toBeat) {
+                patched.put(entry.getKey(), entry.getValue());
+              } else {
+                patched.putStale(entry.getKey(), entry.getValue(), old.serial);
+                changed.add(entry.getKey());
+              }
+            }
+            for (Map.Entry<Integer, BufferedImage> entry : old.stale.entrySet()) {
+              patched.putStale(entry.getKey(), entry.getValue(),
+                      old.staleSerials.get(entry.getKey()));
+            }
+          }
+          synchronized (this.patches) {
+            this.patches.put(patched.serial, new long[]{old.serial, fromBeat, toBeat});
+          }
+        }
+        return patched;
+      });
+      if (next != null) {
+        for (int index : changed) {
+          schedule(next, index);
+        }
+        SwingUtilities.invokeLater(() -> onPatched.accept(after));
+      }
+    });
+  }
+
+  /**
+   * Runs the given task on the snapshot thread, unless this renderer has been disposed of.
+   *
+   * @param task the task to run.
+   */
+  private void submit(Runnable task) {
+    try {
+      this.builder.execute(task);
+    } catch (RejectedExecutionException e) {
+      // Disposed of, so there is nothing left to render.
+    }
+  }
+
+  /**
+   * Stops the threads of this renderer and lets go of every tile. Nothing is rendered after this.
+   */
+  public void dispose() {
+    this.current.set(null);
+    this.builder.shutdownNow();
+    this.workers.shutdownNow();
+  }
+
+  /**
+   * Computes the number of beats covered by a tile at the given zoom level.
+   *
+   * @param pixelsPerBeat the width of a beat.
+   * @return the beats per tile.
+   */
+  public static int tileBeats(double pixelsPerBeat) {
+    return Math.max(1, (int) Math.round(TILE_WIDTH / pixelsPerBeat));
+  }
+
+  /**
+   * Provides the tile at the given index if it has been rendered for the current snapshot. If it
+   * has not, schedules it for rendering and returns null; getStaleTile may then provide the tile
+   * as it was before the latest edits to it.
+   *
+   * @param index the index of the tile, where tile i starts at beat i * tileBeats.
+   * @return the rendered tile, or null if it is not ready yet.
+   */
+  public BufferedImage getTile(int index) {
+    Generation gen = this.current.get();
+    if (gen == null) {
+      return null;
+    }
+    BufferedImage tile = gen.get(index);
+    if (tile == null) {
+      schedule(gen, index);
+    }
+    return tile;
+  }
+
+  /**
+   * Schedules the tile at the given index of the given generation for rendering, unless it is
+   * already scheduled.
+   *
+   * @param gen   the generation the tile belongs to.
+   * @param index the index of the tile.
+   */
+  private void schedule(Generation gen, int index) {
+    if (gen.pending.add(index)) {
+      try {
+        this.workers.execute(() -> render(gen, index));
+      } catch (RejectedExecutionException e) {
+        gen.pending.remove(index);
+      }
+    }
+  }
+
+  /**
+   * Provides the tile at the given index as it was rendered before the latest edits to the beats
+   * it covers, for drawing until getTile has the tile for the current snapshot.
+   *
+   * @param index the index of the tile, where tile i starts at beat i * tileBeats.
+   * @return the outdated tile, or null if there is none.
+   */
+  public BufferedImage getStaleTile(int index) {
+    Generation gen = this.current.get();
+    return gen == null ? null : gen.getStale(index);
+  }
+
+  /**
+   * Renders a tile on a worker thread and publishes it if its generation is still current. A
+   * tile of a generation that has since been patched is published all the same if none of the
+   * patches changed the beats it covers, and otherwise is drawn until the tile is rendered
+   * again, as long as the zoom and sound lanes are the same.
+   *
+   * @param gen   the generation the tile belongs to.
+   * @param index the index of the tile.
+   */
+  private void render(Generation gen, int index) {
+    try {
+      if (this.current.get() != gen && !unchangedSince(gen, index)) {
+        return;
+      }
+      BufferedImage tile = paintTile(gen.snapshot, gen.pixelsPerBeat, index);
+      Generation latest = this.current.get();
+      if (latest == gen) {
+        gen.put(index, tile);
+        SwingUtilities.invokeLater(this.onTileReady);
+      } else if (latest != null && unchangedSince(gen, index)) {
+        latest.putIfAbsent(index, tile);
+        SwingUtilities.invokeLater(this.onTileReady);
+      } else if (latest != null && latest.pixelsPerBeat == gen.pixelsPerBeat
+              && latest.snapshot.lowestMidi() == gen.snapshot.lowestMidi()
+              && latest.snapshot.laneCount() == gen.snapshot.laneCount()) {
+        latest.putStale(index, tile, gen.serial);
+        SwingUtilities.invokeLater(this.onTileReady);
+      }
+    } finally {
+      gen.pending.remove(index);
+    }
+  }
+
+  /**
+   * Determines whether the current generation was patched, one patch after another, from the
+   * given one, with none of the patches changing the beats of the tile at the given index.
+   *
+   * @param gen   the earlier generation.
+   * @param index the index of the tile.
+   * @return true if the tile would look the same in the current generation.
+   */
+  private boolean unchangedSince(Generation gen, int index) {
+    Generation latest = this.current.get();
+    if (latest == null) {
+      return false;
+    }
+    long first = (long) index * tileBeats(gen.pixelsPerBeat);
+    long last = first + tileBeats(gen.pixelsPerBeat) - 1;
+    long serial = latest.serial;
+    synchronized (this.patches) {
+      while (serial != gen.serial) {
+        long[] patch = this.patches.get(serial);
+        if (patch == null || (patch[1] <= last && patch[2] >= first)) {
+          return false;
+        }
+        serial = patch[0];
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Paints the notes and measure lines of one tile on the calling thread, without caching it.
+   *
+   * @param snapshot      the snapshot to paint from.
+   * @param pixelsPerBeat the width of a beat.
+   * @param index         the index of the tile.
+   * @return the painted tile.
+   */
+  public BufferedImage paintTile(ScoreSnapshot snapshot, double pixelsPerBeat, int index) {
+    int tileBeats = tileBeats(pixelsPerBeat);
+    int first = index * tileBeats;
+    int last = Math.min(first + tileBeats - 1, snapshot.getTotalDuration() + 1);
+    int height = this.top + snapshot.laneCount() * this.beatHeight + 2;
+
+    BufferedImage tile = new BufferedImage(TILE_WIDTH, height, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = tile.createGraphics();
+    g.setFont(this.font);
+    if (pixelsPerBeat < LOD_PIXELS_PER_BEAT) {
+      renderDensity(g, snapshot, pixelsPerBeat, first, last);
+    } else {
+      renderNotes(g, snapshot, pixelsPerBeat, first, last);
+    }
+    renderMeasures(g, snapshot, pixelsPerBeat, first, last);
+    g.dispose();
+    return tile;
+  }
+
+  /**
+   * Computes the x coordinate within a tile of the given beat.
+   *
+   * @param beat          the beat to locate.
+   * @param first         the first beat of the tile.
+   * @param pixelsPerBeat the width of a beat.
+   * @return the x coordinate of the beat.
+   */
+  private static int beatToX(int beat, int first, double pixelsPerBeat) {
+    return (int) Math.round((beat - first) * pixelsPerBeat);
+  }
+
+  /**
+   * Computes the y coordinate of the given sound lane, where lane 0 is drawn at the bottom.
+   *
+   * @param lane  the lane to locate.
+   * @param lanes the number of lanes.
+   * @return the y coordinate of the top of the lane.
+   */
+  private int laneToY(int lane, int lanes) {
+    return this.top + ((lanes - 1 - lane) * this.beatHeight);
+  }
+
+  /**
+   * Renders the notes playing within [first, last] one beat cell at a time. The first beat of a
+   * note is drawn black, and the rest of it is drawn green.
+   *
+   * @param g             the Graphics object to paint onto.
+   * @param snapshot      the snapshot to paint from.
+   * @param pixelsPerBeat the width of a beat.
+   * @param first         the first beat of the tile.
+   * @param last          the last beat of the tile.
+   */
+  private void renderNotes(Graphics2D g, ScoreSnapshot snapshot, double pixelsPerBeat, int first,
+                           int last) {
+    int cellWidth = Math.max(1, (int) Math.ceil(pixelsPerBeat));
+    int lanes = snapshot.laneCount();
+    for (int i = snapshot.firstIndexSounding(first); i < snapshot.size(); i += 1) {
+      int start = snapshot.startOf(i);
+      if (start > last) {
+        break;
+      }
+      int end = snapshot.endOf(i);
+      if (end < first) {
+        continue;
+      }
+      int yLoc = laneToY(snapshot.laneOf(i), lanes);
+      for (int t = Math.max(first, start); t <= Math.min(last, end); t += 1) {
+        g.setColor(t == start ? Color.BLACK : Color.GREEN);
+        g.fillRect(beatToX(t, first, pixelsPerBeat), yLoc, cellWidth, this.beatHeight);
+      }
+    }
+  }
+
+  /**
+   * Renders the notes from the density pyramid, one shaded cell per lane and bucket. The cost of
+   * this depends only on the size of the tile, not on the number of notes.
+   *
+   * @param g             the Graphics object to paint onto.
+   * @param snapshot      the snapshot to paint from.
+   * @param pixelsPerBeat the width of a beat.
+   * @param first         the first beat of the tile.
+   * @param last          the last beat of the tile.
+   */
+  private void renderDensity(Graphics2D g, ScoreSnapshot snapshot, double pixelsPerBeat,
+                             int first, int last) {
+    DensityPyramid density = snapshot.pyramid();
+    int level = density.levelFor(MIN_BUCKET_WIDTH / pixelsPerBeat);
+    int span = 1 << level;
+    int width = Math.max(1, (int) Math.ceil(span * pixelsPerBeat));
+    int lanes = density.lanes();
+
+    for (int lane = 0; lane < lanes; lane += 1) {
+      int yLoc = laneToY(lane, lanes);
+      for (int b = first / span; b <= last / span; b += 1) {
+        int count = density.count(level, lane, b);
+        if (count > 0) {
+          int shade = Math.min(DENSITY_SHADES.length - 1,
+                  (count * DENSITY_SHADES.length) / span);
+          g.setColor(DENSITY_SHADES[shade]);
+          g.fillRect(beatToX(b * span, first, pixelsPerBeat), yLoc, width, this.beatHeight);
+        }
+      }
+    }
+  }
+
+  /**
+   * Renders the lines denoting the measures and the rows for each sound, along with the
+   * numerical headings for each measure. Headings of measures just before the tile are drawn too,
+   * so that numbers crossing a tile edge are not cut off.
+   *
+   * @param g             the Graphics object to paint onto.
+   * @param snapshot      the snapshot to paint from.
+   * @param pixelsPerBeat the width of a beat.
+   * @param first         the first beat of the tile.
+   * @param last          the last beat of the tile.
+   */
+  private void renderMeasures(Graphics2D g, ScoreSnapshot snapshot, double pixelsPerBeat,
+                              int first, int last) {
+    g.setColor(Color.BLACK);
+    int lanes = snapshot.laneCount();
+    double measureDuration = snapshot.getMeasureDuration();
+    while (measureDuration * pixelsPerBeat < MIN_MEASURE_SPACING) {
+      measureDuration *= 2;
+    }
+
+    // Vertical lines
+    int labelFrom = Math.max(0, first - (int) Math.ceil(LABEL_WIDTH / pixelsPerBeat));
+    for (int i = labelFrom; i <= last; i += 1) {
+      if (i % measureDuration == 0) {
+        int xLoc = beatToX(i, first, pixelsPerBeat);
+        if (i >= first) {
+          g.fillRect(xLoc, this.top, 2, lanes * this.beatHeight);
+        }
+        g.drawString(String.valueOf(i), xLoc, this.top);
+      }
+    }
+
+    // Horizontal lines
+    int end = Math.min(first + tileBeats(pixelsPerBeat), snapshot.getTotalDuration() + 1);
+    int width = beatToX(end, first, pixelsPerBeat);
+    for (int i = 0; i <= lanes * this.beatHeight; i += this.beatHeight) {
+      g.fillRect(0, this.top + i, width, 2);
+    }
+  }
+
+  /**
+   * Computes the shades used to draw density buckets, from the lightest to the darkest.
+   *
+   * @param count the number of shades.
+   * @return the shades, in order of increasing density.
+   */
+  private static Color[] densityShades(int count) {
+    Color[] shades = new Color[count];
+    for (int i = 0; i < count; i += 1) {
+      double f = (i + 1) / (double) count;
+      shades[i] = new Color((int) (255 * (1 - f)), (int) (255 - 127 * f), (int) (255 * (1 - f)));
+    }
+    return shades;
+  }
+}
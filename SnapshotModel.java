@@ -0,0 +1,115 @@
+package cs3500.music.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Represents a stable read-only view over a sequence of read-only copies of a model. Views keep a
+ * single SnapshotModel and listen to it, while its owner advances it to each newer copy along with
+ * the changes that produced it, so listeners are only told about what actually changed.
+ */
+public class SnapshotModel implements IReadOnlyModel<IMusicNote, IMusicPiece> {
+  private volatile IReadOnlyModel<IMusicNote, IMusicPiece> current;
+  private final List<IModelListener> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Constructs a new SnapshotModel showing the given copy of a model.
+   * @param initial the first copy to show.
+   */
+  public SnapshotModel(IReadOnlyModel<IMusicNote, IMusicPiece> initial) {
+    this.current = initial;
+  }
+
+  /**
+   * Moves this view on to the given copy of the model, and tells every listener about the changes
+   * made since the previous copy.
+   *
+   * @param next    the newer copy to show.
+   * @param changes the changes made between the previous copy and the newer one.
+   */
+  public void advance(IReadOnlyModel<IMusicNote, IMusicPiece> next, List<ModelChange> changes) {
+    this.current = next;
+    if (!changes.isEmpty()) {
+      for (IModelListener listener : this.listeners) {
+        listener.modelChanged(changes);
+      }
+    }
+  }
+
+  @Override
+  public IMusicPiece getPiece() {
+    return this.current.getPiece();
+  }
+
+  @Override
+  public IMusicPiece getPieceAfter(int start) {
+    return this.current.getPieceAfter(start);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesBetween(int fromBeat, int toBeat) {
+    return this.current.getNotesBetween(fromBeat, toBeat);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesPlaying(int fromBeat, int toBeat) {
+    return this.current.getNotesPlaying(fromBeat, toBeat);
+  }
+
+  @Override
+  public Map<Integer, List<IMusicNote>> getPieceByTime() {
+    return this.current.getPieceByTime();
+  }
+
+  @Override
+  public IMusicNote getLowestNote(IMusicPiece opus) {
+    return this.current.getLowestNote(opus);
+  }
+
+  @Override
+  public IMusicNote getHighestNote(IMusicPiece opus) {
+    return this.current.getHighestNote(opus);
+  }
+
+  @Override
+  public String getMusicState() {
+    return this.current.getMusicState();
+  }
+
+  @Override
+  public int getTempo() {
+    return this.current.getTempo();
+  }
+
+  @Override
+  public int getMeasureLength() {
+    return this.current.getMeasureLength();
+  }
+
+  @Override
+  public int getTotalDuration() {
+    return this.current.getTotalDuration();
+  }
+
+  @Override
+  public int totalRange() {
+    return this.current.totalRange();
+  }
+
+  @Override
+  public List<Repeat> getRepeats() {
+    return this.current.getRepeats();
+  }
+
+  @Override
+  public void addListener(IModelListener listener) {
+    this.listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(IModelListener listener) {
+    this.listeners.remove(listener);
+  }
+
+}
@@ -0,0 +1,423 @@
+package cs3500.music.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Makes up songs for load and scaling tests. The same settings and seed always make the same
+ * song, note for note, so that runs on generated songs can be compared with each other.
+ *
+ * <p>A song is played by a number of voices, each playing one note after another: a voice picks
+ * how long its next note lasts from the note length weights, sometimes rests instead, and moves
+ * its pitch by a small step within the pitch range. The song is made up of phrases, and a phrase
+ * is either new or, as often as the repeat density says, a repeat of the phrase before it.</p>
+ *
+ * <p>Notes are made in order of starting beat and handed straight to a CompositionBuilder or
+ * written out in the format read by the MusicReader, so only the voices and the notes of one
+ * phrase are held in memory, however long the song is.</p>
+ */
+public final class SongGenerator {
+  private static final int VOLUME = 64;
+  // How often a voice rests instead of starting a note, in percent.
+  private static final int REST_PERCENT = 10;
+
+  private final long seed;
+  private final int beats;
+  private final long maxNotes;
+  private final int voices;
+  private final int lowPitch;
+  private final int highPitch;
+  private final int instruments;
+  private final int[] lengthWeights;
+  private final double repeatDensity;
+  private final int phraseBeats;
+  private final int tempo;
+
+  /**
+   * Constructs a new SongGenerator from the settings of the given builder.
+   *
+   * @param builder the settings.
+   */
+  private SongGenerator(Builder builder) {
+    this.seed = builder.seed;
+    this.beats = builder.beats;
+    this.maxNotes = builder.maxNotes;
+    this.voices = builder.voices;
+    this.lowPitch = builder.lowPitch;
+    this.highPitch = builder.highPitch;
+    this.instruments = builder.instruments;
+    this.lengthWeights = builder.lengthWeights;
+    this.repeatDensity = builder.repeatDensity;
+    this.phraseBeats = builder.phraseBeats;
+    this.tempo = builder.tempo;
+  }
+
+  /**
+   * Represents the settings of a SongGenerator. Each setting has a default, so only the ones that
+   * matter to a test need to be given.
+   */
+  public static final class Builder {
+    private long seed = 3500;
+    private int beats = 1000;
+    private long maxNotes = Long.MAX_VALUE;
+    private int voices = 4;
+    private int lowPitch = 36;
+    private int highPitch = 84;
+    private int instruments = 1;
+    private int[] lengthWeights = {4, 4, 2, 2, 0, 0, 0, 1};
+    private double repeatDensity = 0.25;
+    private int phraseBeats = 16;
+    private int tempo = 200000;
+
+    /**
+     * Sets the seed the song is made up from.
+     *
+     * @param seed the seed.
+     * @return this builder.
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Sets the number of beats in which notes start.
+     *
+     * @param beats the length of the song, in beats.
+     * @return this builder.
+     * @throws IllegalArgumentException if the length is not positive.
+     */
+    public Builder beats(int beats) throws IllegalArgumentException {
+      if (beats < 1) {
+        throw new IllegalArgumentException("A song must be at least one beat long.");
+      }
+      this.beats = beats;
+      return this;
+    }
+
+    /**
+     * Sets the number of notes after which the song stops, even if it has beats left.
+     *
+     * @param maxNotes the largest number of notes to make.
+     * @return this builder.
+     */
+    public Builder maxNotes(long maxNotes) {
+      this.maxNotes = maxNotes;
+      return this;
+    }
+
+    /**
+     * Sets the number of voices, which is the number of notes that can play at once.
+     *
+     * @param voices the polyphony of the song.
+     * @return this builder.
+     * @throws IllegalArgumentException if there are no voices.
+     */
+    public Builder polyphony(int voices) throws IllegalArgumentException {
+      if (voices < 1) {
+        throw new IllegalArgumentException("A song needs at least one voice.");
+      }
+      this.voices = voices;
+      return this;
+    }
+
+    /**
+     * Sets the range of Midi Numbers the notes are picked from.
+     *
+     * @param lowPitch  the lowest Midi Number.
+     * @param highPitch the highest Midi Number.
+     * @return this builder.
+     * @throws IllegalArgumentException if the range is empty or outside [0, 127].
+     */
+    public Builder pitches(int lowPitch, int highPitch) throws IllegalArgumentException {
+      if (lowPitch < 0 || highPitch > 127 || highPitch < lowPitch) {
+        throw new IllegalArgumentException("Invalid range of pitches specified!");
+      }
+      this.lowPitch = lowPitch;
+      this.highPitch = highPitch;
+      return this;
+    }
+
+    /**
+     * Sets the number of instruments the voices are shared between.
+     *
+     * @param instruments the number of instruments.
+     * @return this builder.
+     * @throws IllegalArgumentException if there are no instruments.
+     */
+    public Builder instruments(int instruments) throws IllegalArgumentException {
+      if (instruments < 1) {
+        throw new IllegalArgumentException("A song needs at least one instrument.");
+      }
+      this.instruments = instruments;
+      return this;
+    }
+
+    /**
+     * Sets how often notes of each length are picked. The weight at index i is how often notes
+     * lasting i + 1 beats are picked, relative to the others.
+     *
+     * @param weights the weights of the note lengths.
+     * @return this builder.
+     * @throws IllegalArgumentException if a weight is negative, or they are all zero.
+     */
+    public Builder noteLengths(int... weights) throws IllegalArgumentException {
+      if (Arrays.stream(weights).anyMatch(w -> w < 0) || Arrays.stream(weights).sum() == 0) {
+        throw new IllegalArgumentException("Invalid note length weights specified!");
+      }
+      this.lengthWeights = weights.clone();
+      return this;
+    }
+
+    /**
+     * Sets how often a phrase repeats the phrase before it, and how long the phrases are.
+     *
+     * @param repeatDensity the chance of a phrase being a repeat, from 0 to 1.
+     * @param phraseBeats   the length of a phrase, in beats.
+     * @return this builder.
+     * @throws IllegalArgumentException if the chance is not in [0, 1] or the phrases are empty.
+     */
+    public Builder repeats(double repeatDensity, int phraseBeats) throws IllegalArgumentException {
+      if (repeatDensity < 0 || repeatDensity > 1 || phraseBeats < 1) {
+        throw new IllegalArgumentException("Invalid repeats specified!");
+      }
+      this.repeatDensity = repeatDensity;
+      this.phraseBeats = phraseBeats;
+      return this;
+    }
+
+    /**
+     * Sets the tempo of the song.
+     *
+     * @param tempo the tempo, in microseconds per beat.
+     * @return this builder.
+     */
+    public Builder tempo(int tempo) {
+      this.tempo = tempo;
+      return this;
+    }
+
+    /**
+     * Creates the SongGenerator with these settings.
+     *
+     * @return the SongGenerator.
+     */
+    public SongGenerator build() {
+      return new SongGenerator(this);
+    }
+  }
+
+  /**
+   * Makes up the song and hands its notes, in order of starting beat, to the given builder.
+   *
+   * @param builder the builder to give the song to.
+   * @param <T>     the type of composition built.
+   * @return the composition built.
+   */
+  public <T> T generateInto(CompositionBuilder<T> builder) {
+    builder.setTempo(this.tempo);
+    generate(builder);
+    return builder.build();
+  }
+
+  /**
+   * Makes up the song and writes it to the given output, in the format read by the MusicReader.
+   *
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written to.
+   */
+  public void writeTo(Writer out) throws IOException {
+    out.write("tempo " + this.tempo + "\n");
+    try {
+      generate(new CompositionBuilder<Void>() {
+        @Override
+        public Void build() {
+          return null;
+        }
+
+        @Override
+        public CompositionBuilder<Void> setTempo(int tempo) {
+          return this;
+        }
+
+        @Override
+        public CompositionBuilder<Void> addNote(int start, int end, int instrument, int pitch,
+                                                int volume) {
+          try {
+            out.write("note " + start + " " + end + " " + instrument + " " + pitch + " "
+                    + volume + "\n");
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          return this;
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Makes up the notes of the song, handing each to the given builder in order of starting beat.
+   *
+   * @param builder the builder to give the notes to.
+   */
+  private void generate(CompositionBuilder<?> builder) {
+    Random random = new Random(this.seed);
+    int totalWeight = Arrays.stream(this.lengthWeights).sum();
+    int[] nextStart = new int[this.voices];
+    int[] pitch = new int[this.voices];
+    for (int v = 0; v < this.voices; v += 1) {
+      pitch[v] = this.lowPitch + random.nextInt(this.highPitch - this.lowPitch + 1);
+    }
+
+    // The notes of the phrase being played, as offsets from its first beat, so that the next
+    // phrase can repeat it: start, length, instrument and pitch for each note.
+    int[] phrase = new int[4 * this.voices * this.phraseBeats];
+    int phraseNotes = 0;
+    int[] lastPhrase = new int[phrase.length];
+    int lastPhraseNotes = 0;
+    int replayed = 0;
+    boolean repeating = false;
+    long made = 0;
+
+    for (int t = 0; t < this.beats && made < this.maxNotes; t += 1) {
+      int offset = t % this.phraseBeats;
+      if (offset == 0) {
+        int[] swap = lastPhrase;
+        lastPhrase = phrase;
+        phrase = swap;
+        lastPhraseNotes = phraseNotes;
+        phraseNotes = 0;
+        replayed = 0;
+        repeating = t > 0 && random.nextDouble() < this.repeatDensity;
+      }
+
+      if (repeating) {
+        // The notes of the last phrase are in order of starting beat, so the ones starting on
+        // this beat are next.
+        while (replayed < lastPhraseNotes && lastPhrase[4 * replayed] == offset
+                && made < this.maxNotes) {
+          int at = 4 * replayed;
+          builder.addNote(t, t + lastPhrase[at + 1], lastPhrase[at + 2], lastPhrase[at + 3],
+                  VOLUME);
+          System.arraycopy(lastPhrase, at, phrase, 4 * phraseNotes, 4);
+          phraseNotes += 1;
+          replayed += 1;
+          made += 1;
+        }
+        // The voices are silent while the phrase repeats, and carry on after it.
+        continue;
+      }
+
+      for (int v = 0; v < this.voices && made < this.maxNotes; v += 1) {
+        if (nextStart[v] > t) {
+          continue;
+        }
+        int length = pickLength(random, totalWeight);
+        nextStart[v] = t + length;
+        if (random.nextInt(100) < REST_PERCENT) {
+          continue;
+        }
+
+        pitch[v] = Math.max(this.lowPitch, Math.min(this.highPitch,
+                pitch[v] + random.nextInt(7) - 3));
+        int instrument = 1 + v % this.instruments;
+        builder.addNote(t, t + length, instrument, pitch[v], VOLUME);
+        int at = 4 * phraseNotes;
+        phrase[at] = offset;
+        phrase[at + 1] = length;
+        phrase[at + 2] = instrument;
+        phrase[at + 3] = pitch[v];
+        phraseNotes += 1;
+        made += 1;
+      }
+    }
+  }
+
+  /**
+   * Picks the length of a note from the note length weights.
+   *
+   * @param random      the source of randomness.
+   * @param totalWeight the sum of the weights.
+   * @return the length, in beats.
+   */
+  private int pickLength(Random random, int totalWeight) {
+    int pick = random.nextInt(totalWeight);
+    for (int i = 0; i < this.lengthWeights.length; i += 1) {
+      pick -= this.lengthWeights[i];
+      if (pick < 0) {
+        return i + 1;
+      }
+    }
+    return this.lengthWeights.length;
+  }
+
+  /**
+   * Writes a generated song to a file from the command line. The first argument is the file to
+   * write; the rest are options, each followed by its value:
+   *   <ul>
+   *     <li>--seed: the seed</li>
+   *     <li>--beats: the length of the song, in beats</li>
+   *     <li>--notes: the largest number of notes to make</li>
+   *     <li>--polyphony: the number of voices</li>
+   *     <li>--pitches: the lowest and highest Midi Numbers, such as 36,84</li>
+   *     <li>--instruments: the number of instruments</li>
+   *     <li>--lengths: the note length weights, such as 4,4,2,2,0,0,0,1</li>
+   *     <li>--repeats: the repeat density and phrase length, such as 0.25,16</li>
+   *   </ul>
+   *
+   * @param args the command line arguments.
+   * @throws IOException if the file cannot be written.
+   * @throws IllegalArgumentException if the arguments are invalid.
+   */
+  public static void main(String[] args) throws IOException, IllegalArgumentException {
+    if (args.length < 1) {
+      throw new IllegalArgumentException("Usage: <output file> [--option value]...");
+    }
+    Builder builder = new Builder();
+    for (int i = 1; i + 1 < args.length; i += 2) {
+      String[] values = args[i + 1].split(",");
+      switch (args[i]) {
+        case "--seed":
+          builder.seed(Long.parseLong(values[0]));
+          break;
+        case "--beats":
+          builder.beats(Integer.parseInt(values[0]));
+          break;
+        case "--notes":
+          builder.maxNotes(Long.parseLong(values[0]));
+          break;
+        case "--polyphony":
+          builder.polyphony(Integer.parseInt(values[0]));
+          break;
+        case "--pitches":
+          builder.pitches(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
+          break;
+        case "--instruments":
+          builder.instruments(Integer.parseInt(values[0]));
+          break;
+        case "--lengths":
+          builder.noteLengths(Arrays.stream(values).mapToInt(Integer::parseInt).toArray());
+          break;
+        case "--repeats":
+          builder.repeats(Double.parseDouble(values[0]), Integer.parseInt(values[1]));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+
+    try (Writer out = new BufferedWriter(Files.newBufferedWriter(Paths.get(args[0]),
+            StandardCharsets.UTF_8), 1 << 16)) {
+      builder.build().writeTo(out);
+    }
+  }
+}
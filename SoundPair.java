@@ -4,6 +4,16 @@ package cs3500.music.model;
  * Represents a pairing of pitch and octave.
  */
 public class SoundPair implements Comparable {
+  private static final PitchType[] PITCHES = PitchType.values();
+  // The one SoundPair of every sound a note can have, indexed by its Midi Number.
+  private static final SoundPair[] BY_MIDI = new SoundPair[128];
+
+  static {
+    for (int midi = 0; midi < BY_MIDI.length; midi += 1) {
+      BY_MIDI[midi] = new SoundPair(PITCHES[midi % 12], midi / 12 - 1);
+    }
+  }
+
   private final PitchType pitch;
   private final int octave;
 
@@ -18,6 +28,45 @@ public class SoundPair implements Comparable {
     this.octave = octave;
   }
 
+  /**
+   * Provides the shared SoundPair of the sound with the given Midi Number.
+   *
+   * @param midi the Midi Number.
+   * @return the SoundPair of that sound.
+   * @throws IllegalArgumentException if the Midi Number is not within the range [0, 127].
+   */
+  public static SoundPair of(int midi) throws IllegalArgumentException {
+    if (midi < 0 || midi >= BY_MIDI.length) {
+      throw new IllegalArgumentException("Midi Number must be in range [0, 127].");
+    }
+    return BY_MIDI[midi];
+  }
+
+  /**
+   * Provides the shared SoundPair of the given pitch and octave, or a new one if no note can have
+   * that sound.
+   *
+   * @param pitch  the PitchType in the pairing.
+   * @param octave the octave in the pairing.
+   * @return the SoundPair of that sound.
+   */
+  public static SoundPair of(PitchType pitch, int octave) {
+    int midi = pitch.ordinal() + ((1 + octave) * 12);
+    if (midi < 0 || midi >= BY_MIDI.length) {
+      return new SoundPair(pitch, octave);
+    }
+    return BY_MIDI[midi];
+  }
+
+  /**
+   * Provides the Midi Number of this SoundPair's sound.
+   *
+   * @return the Midi Number.
+   */
+  public int midiNumber() {
+    return this.pitch.ordinal() + ((1 + this.octave) * 12);
+  }
+
   /**
    * Provides a view of this SoundPair's pitch.
    *
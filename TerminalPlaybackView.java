@@ -0,0 +1,375 @@
+package cs3500.music.view;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Sequencer;
+
+import cs3500.music.model.ConsolePrinter;
+import cs3500.music.model.IMusicNote;
+import cs3500.music.model.IMusicPiece;
+import cs3500.music.model.IReadOnlyModel;
+import cs3500.music.model.MusicModel;
+import cs3500.music.model.MusicalOperations;
+import cs3500.music.model.ReadOnlyModel;
+import cs3500.music.model.SoundPair;
+
+/**
+ * Represents a view that plays the song and follows it live in a terminal, for use where there is
+ * no window to show the GUI in, such as over SSH. The console visualization scrolls past a fixed
+ * line marking the beat being played, with the notes that are sounding listed above it.
+ *
+ * <p>Frames are drawn on their own thread, at a fixed rate, from the tick of the sequencer. Each
+ * frame scrolls the terminal by the beats played since the last one, using ANSI escape codes, and
+ * then rewrites only the lines whose text changed, so the display keeps up at any tempo without
+ * redrawing the whole screen.</p>
+ *
+ * <p>Once the song has played to its end, the last frame is drawn and the view closes itself. If
+ * the program exits while the view is drawing, the terminal is still given back in its usual
+ * state.</p>
+ */
+public class TerminalPlaybackView implements IConsoleView<IReadOnlyModel<IMusicNote,
+        IMusicPiece>> {
+  private static final int FRAME_MILLIS = 33;
+  // The lines above the grid: the column headings and the sounding notes.
+  private static final int TOP_LINES = 2;
+  private static final String ESC = "\u001b[";
+  // The type of the meta message a sequencer sends when it reaches the end of the sequence.
+  private static final int END_OF_TRACK = 0x2F;
+
+  private final Sequencer sequencer;
+  private final PrintStream out;
+  private final int rows;
+  // The line of the grid that the beat being played is kept on, once the song is far enough in.
+  private final int playLine;
+  private IReadOnlyModel<IMusicNote, IMusicPiece> model;
+  private ScheduledExecutorService frames;
+  // Guarded by this: closes the view if the program exits while frames are being drawn.
+  private Thread closeOnExit;
+  private boolean closed = false;
+
+  // Guarded by this: the layout of the song and what is on the screen.
+  private int lowMidi;
+  private int highMidi;
+  private int colWidth;
+  private String[] shown;
+  private int shownTop = -1;
+  private boolean clearScreen = true;
+
+  // Guarded by this: the sweep over the notes, in order of starting beat, that finds the notes
+  // sounding on the beat being played.
+  private List<IMusicNote> upcoming;
+  private int nextUpcoming;
+  private PriorityQueue<IMusicNote> sounding;
+  private int sweptBeat = -1;
+
+  /**
+   * Constructs a new TerminalPlaybackView that plays the given song on the given sequencer and
+   * draws it to the given terminal.
+   *
+   * @param inputModel     the song to play.
+   * @param inputSequencer the Sequencer that plays the notes in the song.
+   * @param out            the terminal to draw to.
+   * @param rows           the number of beats to show at once.
+   * @throws MidiUnavailableException if the sequencer cannot be opened.
+   * @throws IllegalArgumentException if fewer than two beats are to be shown.
+   */
+  public TerminalPlaybackView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel,
+                              Sequencer inputSequencer, PrintStream out, int rows)
+          throws MidiUnavailableException, IllegalArgumentException {
+    if (rows < 2) {
+      throw new IllegalArgumentException("At least two beats must be shown.");
+    }
+    this.sequencer = inputSequencer;
+    this.out = out;
+    this.rows = rows;
+    this.playLine = rows / 4;
+    this.sequencer.open();
+    this.sequencer.addMetaEventListener(message -> {
+      if (message.getType() == END_OF_TRACK) {
+        finish();
+      }
+    });
+    refresh(inputModel);
+  }
+
+  @Override
+  public IReadOnlyModel<IMusicNote, IMusicPiece> getModel() {
+    IMusicPiece opus = this.model.getPiece();
+    int measureDuration = (int) Math.ceil(opus.getMeasureDuration());
+    int tempo = this.model.getTempo();
+    MusicalOperations<IMusicNote, IMusicPiece> mutable =
+            new MusicModel(opus, measureDuration, tempo);
+
+    return new ReadOnlyModel(mutable);
+  }
+
+  @Override
+  public String consoleView(IReadOnlyModel<IMusicNote, IMusicPiece> inputModel) {
+    return new PrinterForConsole(inputModel).getMusicState();
+  }
+
+  @Override
+  public synchronized void refresh(IReadOnlyModel<IMusicNote, IMusicPiece> model) {
+    int currTick = this.sequencer.getSequence() == null ? 0 : getTick();
+    this.model = model;
+    try {
+      this.sequencer.setSequence(MidiViewer.buildSequence(model.getPiece().getNotes()));
+    } catch (InvalidMidiDataException e) {
+      e.getMessage();
+    }
+    this.sequencer.setTempoInMPQ(model.getTempo());
+    this.sequencer.setTickPosition(Math.min(currTick, model.getTotalDuration()));
+
+    this.lowMidi = model.getLowestNote(model.getPiece()).midiNumber();
+    this.highMidi = model.getHighestNote(model.getPiece()).midiNumber();
+    this.colWidth = String.valueOf(model.getTotalDuration()).length();
+    this.shown = new String[this.rows];
+    this.shownTop = -1;
+    this.clearScreen = true;
+    this.sweptBeat = -1;
+  }
+
+  /**
+   * Starts drawing frames, and plays the song from where it is.
+   */
+  @Override
+  public synchronized void run() {
+    if (this.closed) {
+      return;
+    }
+    if (this.frames == null) {
+      this.frames = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "terminal-frames");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.frames.scheduleAtFixedRate(this::drawFrame, 0, FRAME_MILLIS, TimeUnit.MILLISECONDS);
+      this.closeOnExit = new Thread(this::close, "terminal-restore");
+      Runtime.getRuntime().addShutdownHook(this.closeOnExit);
+    }
+    play();
+  }
+
+  /**
+   * Draws the last frame of the song, then closes this view. The sequencer calls this on its own
+   * thread, so the work is handed to the frame thread.
+   */
+  private synchronized void finish() {
+    if (this.frames != null) {
+      this.frames.execute(() -> {
+        drawFrame();
+        close();
+      });
+    }
+  }
+
+  /**
+   * Stops drawing frames, closes the sequencer, and gives the terminal back in its usual state.
+   * Closing a view that is already closed does nothing.
+   */
+  public synchronized void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    pause();
+    this.sequencer.close();
+    if (this.frames != null) {
+      this.frames.shutdownNow();
+      this.frames = null;
+    }
+    if (this.closeOnExit != null && Thread.currentThread() != this.closeOnExit) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(this.closeOnExit);
+      } catch (IllegalStateException e) {
+        // The program is already exiting, and the hook has nothing left to do.
+      }
+    }
+    // Resets the scrolling region, shows the cursor, and moves below the grid.
+    this.out.print(ESC + "r" + ESC + "?25h" + ESC + (TOP_LINES + this.rows + 1) + ";1H");
+    this.out.flush();
+  }
+
+  @Override
+  public void play() {
+    int originalTempo = this.model.getTempo();
+
+    this.sequencer.setTempoInMPQ(originalTempo); // Sequencer tempo resets after .start()
+    this.sequencer.start();
+    this.sequencer.setTempoInMPQ(originalTempo);
+  }
+
+  @Override
+  public void pause() {
+    int originalTempo = this.model.getTempo();
+
+    this.sequencer.setTempoInMPQ(originalTempo); // Sequencer tempo resets after .start()
+    this.sequencer.stop();
+    this.sequencer.setTempoInMPQ(originalTempo);
+  }
+
+  @Override
+  public void goToStart() {
+    setTick(0);
+  }
+
+  @Override
+  public void goToEnd() {
+    setTick(this.model.getTotalDuration());
+    pause();
+  }
+
+  @Override
+  public int getTick() {
+    return (int) this.sequencer.getTickPosition();
+  }
+
+  @Override
+  public void setTick(int beat) throws IllegalArgumentException {
+    if (beat < 0 || beat > this.model.getTotalDuration() + 1) {
+      throw new IllegalArgumentException("The specified beat must exist within the duration of " +
+              "the song!");
+    }
+    this.sequencer.setTickPosition(beat);
+  }
+
+  /**
+   * Draws one frame for the beat the sequencer is on, writing all of its changes at once.
+   */
+  private synchronized void drawFrame() {
+    int beat = Math.min(getTick(), this.model.getTotalDuration());
+    int top = Math.max(0, beat - this.playLine);
+    StringBuilder frame = new StringBuilder();
+
+    if (this.clearScreen) {
+      // Hides the cursor, clears the screen, and confines scrolling to the grid.
+      frame.append(ESC).append("?25l").append(ESC).append("2J")
+              .append(ESC).append(TOP_LINES + 1).append(';').append(TOP_LINES + this.rows)
+              .append('r');
+      moveTo(frame, 1);
+      frame.append(new ConsolePrinter(new ArrayList<>(), 0, this.model.getTotalDuration(),
+              this.lowMidi, this.highMidi, true).headerLine()).append(ESC).append('K');
+      this.clearScreen = false;
+    }
+
+    String[] lines = gridLines(top, beat);
+    int scrolled = top - this.shownTop;
+    if (this.shownTop >= 0 && scrolled > 0 && scrolled < this.rows) {
+      // Lets the terminal move the lines that are still shown, then only the new ones are drawn.
+      frame.append(ESC).append(scrolled).append('S');
+      System.arraycopy(this.shown, scrolled, this.shown, 0, this.rows - scrolled);
+      Arrays.fill(this.shown, this.rows - scrolled, this.rows, null);
+    } else if (scrolled != 0) {
+      Arrays.fill(this.shown, null);
+    }
+    this.shownTop = top;
+
+    for (int i = 0; i < this.rows; i += 1) {
+      if (!lines[i].equals(this.shown[i])) {
+        moveTo(frame, TOP_LINES + 1 + i);
+        frame.append(lines[i]).append(ESC).append("0m").append(ESC).append('K');
+        this.shown[i] = lines[i];
+      }
+    }
+
+    moveTo(frame, 2);
+    frame.append(soundingLine(beat)).append(ESC).append('K');
+
+    this.out.print(frame);
+    this.out.flush();
+  }
+
+  /**
+   * Computes the lines of the grid for the beats starting at the given one, with the beat being
+   * played in reverse video. Only the notes playing on those beats are looked at.
+   *
+   * @param top  the first beat shown.
+   * @param beat the beat being played.
+   * @return the lines of the grid, one per row.
+   */
+  private String[] gridLines(int top, int beat) {
+    String[] lines = new String[this.rows];
+    int last = Math.min(top + this.rows - 1, this.model.getTotalDuration());
+    String[] rendered = new ConsolePrinter(this.model.getNotesPlaying(top, last), top, last,
+            this.lowMidi, this.highMidi, true).subsequentLines().split("\n");
+
+    for (int i = 0; i < this.rows; i += 1) {
+      if (i >= rendered.length) {
+        lines[i] = "";
+        continue;
+      }
+      // Pads the time column to the width it has for the whole song.
+      StringBuilder line = new StringBuilder();
+      for (int pad = String.valueOf(last).length(); pad < this.colWidth; pad += 1) {
+        line.append(' ');
+      }
+      if (top + i == beat) {
+        line.insert(0, ESC + "7m");
+      }
+      lines[i] = line.append(rendered[i]).toString();
+    }
+    return lines;
+  }
+
+  /**
+   * Computes the line listing the notes sounding on the given beat. The notes are swept in order
+   * of their starting beats as the song plays, so only the notes started since the last frame are
+   * looked at; going back in the song starts the sweep again from there.
+   *
+   * @param beat the beat being played.
+   * @return the line listing the sounding notes.
+   */
+  private String soundingLine(int beat) {
+    if (this.sweptBeat < 0 || beat < this.sweptBeat) {
+      this.upcoming = this.model.getNotesBetween(beat + 1, Integer.MAX_VALUE);
+      this.nextUpcoming = 0;
+      this.sounding = new PriorityQueue<>((a, b) ->
+              Integer.compare(a.getEndLocation(), b.getEndLocation()));
+      this.sounding.addAll(this.model.getNotesPlaying(beat, beat));
+    }
+    while (this.nextUpcoming < this.upcoming.size()
+            && this.upcoming.get(this.nextUpcoming).getStartLocation() <= beat) {
+      this.sounding.add(this.upcoming.get(this.nextUpcoming));
+      this.nextUpcoming += 1;
+    }
+    while (!this.sounding.isEmpty() && this.sounding.peek().getEndLocation() < beat) {
+      this.sounding.poll();
+    }
+    this.sweptBeat = beat;
+
+    List<Integer> midis = new ArrayList<>();
+    for (IMusicNote note : this.sounding) {
+      if (!midis.contains(note.midiNumber())) {
+        midis.add(note.midiNumber());
+      }
+    }
+    midis.sort(Integer::compare);
+
+    StringBuilder line = new StringBuilder("Beat ").append(beat).append(" of ")
+            .append(this.model.getTotalDuration())
+            .append(this.sequencer.isRunning() ? "  > " : "  || ");
+    for (int midi : midis) {
+      line.append(' ').append(SoundPair.of(midi));
+    }
+    return line.toString();
+  }
+
+  /**
+   * Appends the escape code that moves the cursor to the start of the given line.
+   *
+   * @param frame the frame being drawn.
+   * @param line  the line to move to, counting from 1.
+   */
+  private static void moveTo(StringBuilder frame, int line) {
+    frame.append(ESC).append(line).append(";1H");
+  }
+}
@@ -0,0 +1,314 @@
+package cs3500.music.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents a musical composition whose edits can be undone and redone. Wraps another model, and
+ * for every edit made through it records a compact delta: only the notes, tempo or repeat the
+ * edit touched, together with how to reverse it. Undoing or redoing an edit therefore costs time
+ * proportional to the size of that edit, not to the size of the composition.
+ *
+ * <p>The history is bounded. Deltas are grouped into segments of SEGMENT_SIZE edits, and only the
+ * most recent MAX_SEGMENTS segments are kept; once the limit is passed, the oldest segment is
+ * dropped as a whole and its edits can no longer be undone. No copy of the composition is ever
+ * taken, so arbitrarily long editing sessions use a bounded amount of memory.</p>
+ */
+public class UndoableModel implements MusicalOperations<IMusicNote, IMusicPiece> {
+  private static final int SEGMENT_SIZE = 1024;
+  private static final int MAX_SEGMENTS = 16;
+
+  private final MusicalOperations<IMusicNote, IMusicPiece> model;
+  private final Deque<List<Delta>> undoSegments = new ArrayDeque<>();
+  private final Deque<Delta> redoStack = new ArrayDeque<>();
+
+  /**
+   * Represents one recorded edit, as the actions that reverse and reapply it.
+   */
+  private static final class Delta {
+    private final Runnable undo;
+    private final Runnable redo;
+
+    private Delta(Runnable undo, Runnable redo) {
+      this.undo = undo;
+      this.redo = redo;
+    }
+  }
+
+  /**
+   * Constructs a new UndoableModel over the given model. Edits made to the given model directly,
+   * rather than through this one, are not recorded.
+   *
+   * @param model the model to edit.
+   */
+  public UndoableModel(MusicalOperations<IMusicNote, IMusicPiece> model) {
+    this.model = model;
+  }
+
+  /**
+   * Reverses the most recent edit that has not been undone yet.
+   *
+   * @return true if an edit was undone, or false if there was nothing to undo.
+   */
+  public boolean undo() {
+    while (!this.undoSegments.isEmpty() && this.undoSegments.peekLast().isEmpty()) {
+      this.undoSegments.removeLast();
+    }
+    if (this.undoSegments.isEmpty()) {
+      return false;
+    }
+    List<Delta> segment = this.undoSegments.peekLast();
+    Delta delta = segment.remove(segment.size() - 1);
+    delta.undo.run();
+    this.redoStack.push(delta);
+    return true;
+  }
+
+  /**
+   * Reapplies the most recently undone edit. Making a new edit discards every undone edit.
+   *
+   * @return true if an edit was redone, or false if there was nothing to redo.
+   */
+  public boolean redo() {
+    if (this.redoStack.isEmpty()) {
+      return false;
+    }
+    Delta delta = this.redoStack.pop();
+    delta.redo.run();
+    push(delta);
+    return true;
+  }
+
+  /**
+   * Determines whether there is an edit that can be undone.
+   *
+   * @return true if undo would change the composition.
+   */
+  public boolean canUndo() {
+    for (List<Delta> segment : this.undoSegments) {
+      if (!segment.isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether there is an undone edit that can be redone.
+   *
+   * @return true if redo would change the composition.
+   */
+  public boolean canRedo() {
+    return !this.redoStack.isEmpty();
+  }
+
+  /**
+   * Records a new edit, discarding every undone edit.
+   *
+   * @param undo the action that reverses the edit.
+   * @param redo the action that reapplies the edit.
+   */
+  private void record(Runnable undo, Runnable redo) {
+    this.redoStack.clear();
+    push(new Delta(undo, redo));
+  }
+
+  /**
+   * Adds the given delta to the undo history, taking a checkpoint when the current segment is
+   * full and dropping the oldest segment when there are too many.
+   *
+   * @param delta the delta to add.
+   */
+  private void push(Delta delta) {
+    List<Delta> segment = this.undoSegments.peekLast();
+    if (segment == null || segment.size() >= SEGMENT_SIZE) {
+      segment = new ArrayList<>();
+      this.undoSegments.addLast(segment);
+      if (this.undoSegments.size() > MAX_SEGMENTS) {
+        this.undoSegments.removeFirst();
+      }
+    }
+    segment.add(delta);
+  }
+
+  @Override
+  public IMusicPiece getPiece() {
+    return this.model.getPiece();
+  }
+
+  @Override
+  public IMusicPiece getPieceAfter(int start) {
+    return this.model.getPieceAfter(start);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesBetween(int fromBeat, int toBeat) {
+    return this.model.getNotesBetween(fromBeat, toBeat);
+  }
+
+  @Override
+  public List<IMusicNote> getNotesPlaying(int fromBeat, int toBeat) {
+    return this.model.getNotesPlaying(fromBeat, toBeat);
+  }
+
+  @Override
+  public Map<Integer, List<IMusicNote>> getPieceByTime() {
+    return this.model.getPieceByTime();
+  }
+
+  @Override
+  public void writeNote(IMusicNote addedNote) {
+    this.model.writeNote(addedNote);
+    record(() -> this.model.removeNote(addedNote), () -> this.model.writeNote(addedNote));
+  }
+
+  @Override
+  public void removeNote(IMusicNote note) throws IllegalArgumentException {
+    this.model.removeNote(note);
+    record(() -> this.model.writeNote(note), () -> this.model.removeNote(note));
+  }
+
+  @Override
+  public void replaceNote(IMusicNote currentNote, IMusicNote newNote) throws
+          IllegalArgumentException {
+    this.model.replaceNote(currentNote, newNote);
+    record(() -> this.model.replaceNote(newNote, currentNote),
+        () -> this.model.replaceNote(currentNote, newNote));
+  }
+
+  @Override
+  public void applyEdits(List<NoteEdit<IMusicNote>> edits) throws IllegalArgumentException {
+    List<NoteEdit<IMusicNote>> forward = new ArrayList<>(edits);
+    this.model.applyEdits(forward);
+
+    List<NoteEdit<IMusicNote>> inverse = new ArrayList<>(forward.size());
+    for (int i = forward.size() - 1; i >= 0; i -= 1) {
+      inverse.add(inverseOf(forward.get(i)));
+    }
+    record(() -> this.model.applyEdits(inverse), () -> this.model.applyEdits(forward));
+  }
+
+  /**
+   * Computes the edit that reverses the given edit.
+   *
+   * @param edit the edit to reverse.
+   * @return the reversing edit.
+   */
+  private static NoteEdit<IMusicNote> inverseOf(NoteEdit<IMusicNote> edit) {
+    switch (edit.getKind()) {
+      case WRITE:
+        return NoteEdit.remove(edit.getNote());
+      case REMOVE:
+        return NoteEdit.write(edit.getNote());
+      default:
+        return NoteEdit.replace(edit.getReplacement(), edit.getNote());
+    }
+  }
+
+  @Override
+  public void combinePieces(IMusicPiece toJoin, boolean simultaneous) throws
+          IllegalArgumentException {
+    // Joining adds copies of the other piece's notes, so the added notes are taken from the
+    // change the join reports, and redo writes them again rather than joining a second time.
+    List<IMusicNote> joined = new ArrayList<>();
+    IModelListener capture = changes -> {
+      for (ModelChange change : changes) {
+        if (change.getKind() == ModelChange.Kind.PIECE_COMBINED) {
+          joined.addAll(change.getJoinedNotes());
+        }
+      }
+    };
+    this.model.addListener(capture);
+    try {
+      this.model.combinePieces(toJoin, simultaneous);
+    } finally {
+      this.model.removeListener(capture);
+    }
+
+    // Undo removes the very notes that were added, which are found by their IDs, so a note equal
+    // to one of them that was already in the piece is left alone.
+    List<NoteEdit<IMusicNote>> removals = new ArrayList<>();
+    List<NoteEdit<IMusicNote>> writes = new ArrayList<>();
+    for (IMusicNote note : joined) {
+      removals.add(NoteEdit.remove(note));
+      writes.add(NoteEdit.write(note));
+    }
+    record(() -> this.model.applyEdits(removals),
+        () -> this.model.applyEdits(writes));
+  }
+
+  @Override
+  public IMusicNote getLowestNote(IMusicPiece opus) {
+    return this.model.getLowestNote(opus);
+  }
+
+  @Override
+  public IMusicNote getHighestNote(IMusicPiece opus) {
+    return this.model.getHighestNote(opus);
+  }
+
+  @Override
+  public String getMusicState() {
+    return this.model.getMusicState();
+  }
+
+  @Override
+  public void setTempo(int newTempo) {
+    int oldTempo = this.model.getTempo();
+    this.model.setTempo(newTempo);
+    record(() -> this.model.setTempo(oldTempo), () -> this.model.setTempo(newTempo));
+  }
+
+  @Override
+  public int getTempo() {
+    return this.model.getTempo();
+  }
+
+  @Override
+  public int getTotalDuration() {
+    return this.model.getTotalDuration();
+  }
+
+  @Override
+  public int getMeasureLength() {
+    return this.model.getMeasureLength();
+  }
+
+  @Override
+  public int totalRange() {
+    return this.model.totalRange();
+  }
+
+  @Override
+  public List<Repeat> getRepeats() {
+    return this.model.getRepeats();
+  }
+
+  @Override
+  public void addRepeat(Repeat repeat) {
+    int before = this.model.getRepeats().size();
+    this.model.addRepeat(repeat);
+    if (this.model.getRepeats().size() > before) {
+      record(() -> this.model.removeRepeat(repeat), () -> this.model.addRepeat(repeat));
+    }
+  }
+
+  @Override
+  public void removeRepeat(Repeat repeat) throws IllegalArgumentException {
+    this.model.removeRepeat(repeat);
+    record(() -> this.model.addRepeat(repeat), () -> this.model.removeRepeat(repeat));
+  }
+
+  @Override
+  public void addListener(IModelListener listener) {
+    this.model.addListener(listener);
+  }
+
+  @Override
+  public void removeListener(IModelListener listener) {
+    this.model.removeListener(listener);
+  }
+}
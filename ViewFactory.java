@@ -1,5 +1,7 @@
 package cs3500.music.util;
 
+import java.util.concurrent.ForkJoinPool;
+
 import javax.sound.midi.MidiSystem;
 import javax.sound.midi.MidiUnavailableException;
 
@@ -14,11 +16,14 @@ import cs3500.music.view.ConsoleViewer;
 import cs3500.music.view.GUIView;
 import cs3500.music.view.IView;
 import cs3500.music.view.MidiViewer;
+import cs3500.music.view.TerminalPlaybackView;
 
 /**
  * Represents a Factory class to construct different types of Views.
  */
 public class ViewFactory {
+  // The number of beats the terminal view shows at once, to fit a standard terminal.
+  private static final int TERMINAL_ROWS = 20;
 
   /**
    * Computes a specific IView of a view type specified by the given input String.
@@ -49,7 +54,23 @@ public class ViewFactory {
       case "console":
         outputView = new ConsoleViewer(inputModel);
         break;
+      case "parallel-console":
+        outputView = new ConsoleViewer(inputModel, ForkJoinPool.commonPool());
+        break;
+      case "compact-console":
+        ConsoleViewer compactView = new ConsoleViewer(inputModel);
+        compactView.setCompact(true);
+        outputView = compactView;
+        break;
 
+      case "terminal":
+        try {
+          outputView = new TerminalPlaybackView(inputModel, MidiSystem.getSequencer(), System.out,
+                  TERMINAL_ROWS);
+        } catch (MidiUnavailableException e) {
+          e.getMessage();
+        }
+        break;
       case "composite":
         try {
           outputView = new CompositeView(inputModel, MidiSystem.getSequencer());